@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+// region imports
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationIndex;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilmSimilarityIndex;
+import ru.yandex.practicum.filmorate.service.LikeGraph;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+// endregion
+
+/**
+ * Бенчмарки сервиса фильмов поверх БД H2: чтение фильмов вместе со справочными данными.
+ * Сервис собирается без контекста Spring, хранилища подставляются в его поля напрямую.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+    @Param({"1000", "10000"})
+    public int size;
+
+    private SeededStorages storages;
+
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.storages = SeededStorages.create(StorageKind.H2, this.size);
+
+        this.filmService = new FilmService();
+        ReflectionTestUtils.setField(this.filmService, "filmStorage", this.storages.getFilmStorage());
+        ReflectionTestUtils.setField(this.filmService, "genreStorage", this.storages.getGenreStorage());
+        ReflectionTestUtils.setField(this.filmService, "mpaStorage", this.storages.getMpaStorage());
+        ReflectionTestUtils.setField(this.filmService, "userStorage", this.storages.getUserStorage());
+
+        LikeGraph likeGraph = new LikeGraph(this.storages.getFilmStorage());
+        FilmRecommendationIndex recommendationIndex = new FilmRecommendationIndex(likeGraph);
+        FilmSimilarityIndex similarityIndex = new FilmSimilarityIndex(likeGraph);
+        likeGraph.load();
+        ReflectionTestUtils.setField(this.filmService, "likeGraph", likeGraph);
+        ReflectionTestUtils.setField(this.filmService, "recommendationIndex", recommendationIndex);
+        ReflectionTestUtils.setField(this.filmService, "similarityIndex", similarityIndex);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.storages.close();
+    }
+
+    @Benchmark
+    public Film filmById() {
+        return this.filmService.getFilmById(this.storages.randomId());
+    }
+
+    @Benchmark
+    public Collection<Film> popularFilms() {
+        return this.filmService.getPopularFilms(10L);
+    }
+
+    @Benchmark
+    public Collection<Film> allFilms() {
+        return this.filmService.getAll();
+    }
+
+    @Benchmark
+    public Collection<Film> recommendations() {
+        return this.filmService.getRecommendations(this.storages.randomId(), 10);
+    }
+
+    @Benchmark
+    public Collection<Film> similarFilms() {
+        return this.filmService.getSimilarFilms(this.storages.randomId(), 10);
+    }
+}
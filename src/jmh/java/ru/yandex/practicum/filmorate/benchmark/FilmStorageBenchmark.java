@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+// region imports
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// endregion
+
+/**
+ * Бенчмарки хранилищ фильмов: создание фильма с жанрами, лайки и популярные фильмы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmStorageBenchmark {
+    @Param({"IN_MEMORY", "H2"})
+    public StorageKind storage;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private SeededStorages storages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.storages = SeededStorages.create(this.storage, this.size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.storages.close();
+    }
+
+    @Benchmark
+    public Film createFilmWithGenres() {
+        return this.storages.getFilmStorage().create(SeededStorages.newFilm(ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public void addAndRemoveLike() {
+        long filmId = this.storages.randomId();
+        long userId = this.storages.getBenchmarkUserId();
+
+        this.storages.getFilmStorage().addLike(filmId, userId);
+        this.storages.getFilmStorage().removeLike(filmId, userId);
+    }
+
+    @Benchmark
+    public Collection<Film> popularFilms() {
+        return this.storages.getFilmStorage().getPopularFilms(10L);
+    }
+}
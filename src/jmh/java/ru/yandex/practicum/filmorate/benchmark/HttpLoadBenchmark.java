@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+// region imports
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// endregion
+
+/**
+ * Нагрузочный бенчмарк HTTP-эндпоинтов при большом количестве одновременных клиентов.
+ * Приложение запускается целиком на случайном порту с БД H2 в памяти, в режиме платформенных
+ * ({@code virtualThreads=false}) или виртуальных ({@code virtualThreads=true}) потоков.
+ * Режим {@link Mode#SampleTime} даёт перцентили задержки (в том числе p0.99), {@link Mode#Throughput} - пропускную способность.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(1)
+public class HttpLoadBenchmark {
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"10000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = SpringApplication.run(FilmorateApplication.class,
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + this.virtualThreads,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN");
+
+        SeededStorages.populate(this.context.getBean(JdbcTemplate.class), this.size);
+
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.baseUrl = "http://localhost:" + this.context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.client.close();
+        this.context.close();
+    }
+
+    @Benchmark
+    public int filmById() throws IOException, InterruptedException {
+        return this.get("/films/" + this.randomId());
+    }
+
+    @Benchmark
+    public int popularFilms() throws IOException, InterruptedException {
+        return this.get("/films/popular?count=10");
+    }
+
+    @Benchmark
+    public int userFriends() throws IOException, InterruptedException {
+        return this.get("/users/" + this.randomId() + "/friends");
+    }
+
+    // region Facilities
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, this.size + 1L);
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(this.baseUrl + path)).GET().build();
+        HttpResponse<byte[]> response = this.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + ": " + response.statusCode());
+        }
+
+        return response.body().length;
+    }
+
+    // endregion
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+// region imports
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.service.FilmJsonCache;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeGraph;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+
+import java.util.concurrent.TimeUnit;
+
+// endregion
+
+/**
+ * Бенчмарки постановки лайков в очередь отложенной записи поверх БД H2.
+ * {@link #likeKnownTargets()} ставит лайк засеянного пользователя: фильм и пользователь известны графу лайков,
+ * и проверка их существования обходится без запросов в БД. {@link #unlikeByUserWithoutLikes()} удаляет лайк
+ * пользователя без лайков: его существование проверяется запросом в БД.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeWriteBehindBenchmark {
+    @Param({"1000", "10000"})
+    public int size;
+
+    private SeededStorages storages;
+
+    private LikeWriteBehindQueue likeWriteBehindQueue;
+
+    private FilmService filmService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.storages = SeededStorages.create(StorageKind.H2, this.size);
+
+        FilmDbStorage filmStorage = (FilmDbStorage) this.storages.getFilmStorage();
+        LikeGraph likeGraph = new LikeGraph(filmStorage);
+        likeGraph.load();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(this.storages.getDataSource()));
+        this.likeWriteBehindQueue = new LikeWriteBehindQueue(filmStorage, transactionTemplate, likeGraph, 100_000, 1_000, 200, 1_000, false);
+
+        this.filmService = new FilmService();
+        ReflectionTestUtils.setField(this.filmService, "filmStorage", filmStorage);
+        ReflectionTestUtils.setField(this.filmService, "userStorage", this.storages.getUserStorage());
+        ReflectionTestUtils.setField(this.filmService, "likeGraph", likeGraph);
+        ReflectionTestUtils.setField(this.filmService, "filmJsonCache", new FilmJsonCache(new ObjectMapper(), 10_000));
+        ReflectionTestUtils.setField(this.filmService, "likeWriteBehindQueue", this.likeWriteBehindQueue);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        this.likeWriteBehindQueue.close();
+        this.storages.close();
+    }
+
+    @Benchmark
+    public void likeKnownTargets() {
+        this.filmService.addLike(this.storages.randomId(), this.storages.randomId());
+    }
+
+    @Benchmark
+    public void unlikeByUserWithoutLikes() {
+        this.filmService.removeLike(this.storages.randomId(), this.storages.getBenchmarkUserId());
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+// region imports
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.core.BodyFilters;
+import org.zalando.logbook.core.BodyOnlyIfStatusAtLeastStrategy;
+import org.zalando.logbook.core.DefaultHttpLogFormatter;
+import org.zalando.logbook.core.DefaultSink;
+import org.zalando.logbook.core.DefaultStrategy;
+import org.zalando.logbook.servlet.LogbookFilter;
+import ru.yandex.practicum.filmorate.util.logbook.AsyncHttpLogWriter;
+import ru.yandex.practicum.filmorate.util.logbook.SamplingRequestCondition;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// endregion
+
+/**
+ * Бенчмарк стоимости логирования Logbook на один HTTP-запрос.
+ * Запрос проходит через {@link LogbookFilter} до обработчика, записывающего тело ответа размера {@code responseSize}:
+ * <ul>
+ *     <li>{@code off} - без Logbook;</li>
+ *     <li>{@code sync} - настройки по умолчанию: каждый запрос с телами, синхронная запись;</li>
+ *     <li>{@code prod} - настройки профиля {@code prod}: выборка 1% запросов, тела только для ошибок и не длиннее
+ *     2 КБ, асинхронная запись с ограниченной очередью.</li>
+ * </ul>
+ * Запись журнала только подсчитывает символы, поэтому в результат входят буферизация и форматирование, но не ввод-вывод.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogbookFilterBenchmark {
+    @Param({"off", "sync", "prod"})
+    public String mode;
+
+    @Param({"1024", "1048576"})
+    public int responseSize;
+
+    private Filter filter;
+
+    private FilterChain chain;
+
+    private AsyncHttpLogWriter asyncWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] body = new byte[this.responseSize];
+        Arrays.fill(body, (byte) 'a');
+        this.chain = (request, response) -> {
+            response.setContentType("application/json");
+            response.getOutputStream().write(body);
+        };
+
+        HttpLogWriter writer = new CountingHttpLogWriter();
+        this.filter = switch (this.mode) {
+            case "off" -> (request, response, chain) -> chain.doFilter(request, response);
+            case "sync" -> new LogbookFilter(Logbook.builder()
+                    .strategy(new DefaultStrategy())
+                    .sink(new DefaultSink(new DefaultHttpLogFormatter(), writer))
+                    .build());
+            case "prod" -> {
+                this.asyncWriter = new AsyncHttpLogWriter(writer, 10000, new SimpleMeterRegistry());
+                yield new LogbookFilter(Logbook.builder()
+                        .condition(new SamplingRequestCondition(request -> true, 0.01))
+                        .strategy(new BodyOnlyIfStatusAtLeastStrategy(400))
+                        .bodyFilter(BodyFilters.truncate(2048))
+                        .sink(new DefaultSink(new DefaultHttpLogFormatter(), this.asyncWriter))
+                        .build());
+            }
+            default -> throw new IllegalArgumentException(this.mode);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        if (this.asyncWriter != null) {
+            this.asyncWriter.close();
+        }
+    }
+
+    @Benchmark
+    public int request() throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.filter.doFilter(request, response, this.chain);
+
+        return response.getStatus();
+    }
+
+    /**
+     * Запись журнала, только подсчитывающая записанные символы.
+     */
+    private static class CountingHttpLogWriter implements HttpLogWriter {
+        private final LongAdder written = new LongAdder();
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public void write(Precorrelation precorrelation, String request) {
+            this.written.add(request.length());
+        }
+
+        @Override
+        public void write(Correlation correlation, String response) {
+            this.written.add(response.length());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+// region imports
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.serialization.DurationDeserializer;
+import ru.yandex.practicum.filmorate.util.serialization.DurationSerializer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// endregion
+
+/**
+ * Бенчмарки преобразования фильмов в трансферные объекты и их (де)сериализации в JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+    @Param({"100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+
+    private List<Film> films;
+
+    private Collection<FilmDto> filmDtos;
+
+    private byte[] filmJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        this.objectMapper = JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .addModule(new SimpleModule()
+                        .addSerializer(Duration.class, new DurationSerializer())
+                        .addDeserializer(Duration.class, new DurationDeserializer()))
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        Random random = new Random(42);
+        this.films = new ArrayList<>(this.size);
+        for (long id = 1; id <= this.size; id++) {
+            Film film = SeededStorages.newFilm(random);
+            film.setId(id);
+            this.films.add(film);
+        }
+
+        this.filmDtos = FilmMapper.mapToFilmDtoCollection(this.films);
+        this.filmJson = this.objectMapper.writeValueAsBytes(this.filmDtos.iterator().next());
+    }
+
+    @Benchmark
+    public Collection<FilmDto> mapToDto() {
+        return FilmMapper.mapToFilmDtoCollection(this.films);
+    }
+
+    @Benchmark
+    public byte[] serializeDtos() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.filmDtos);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(FilmMapper.mapToFilmDtoCollection(this.films));
+    }
+
+    @Benchmark
+    public FilmDto deserializeDto() throws IOException {
+        return this.objectMapper.readValue(this.filmJson, FilmDto.class);
+    }
+}
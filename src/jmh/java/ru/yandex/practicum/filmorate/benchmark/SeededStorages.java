@@ -0,0 +1,292 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+// region imports
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.MotionPictureAssociationDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.MotionPictureAssociationStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.UserStorage;
+import ru.yandex.practicum.filmorate.storage.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.MotionPictureAssociationRowMapper;
+import ru.yandex.practicum.filmorate.storage.mapper.UserRowMapper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+// endregion
+
+/**
+ * Хранилища, заполненные синтетическим набором данных заданного размера.
+ * В наборе {@code size} пользователей и {@code size} фильмов; у каждого пользователя есть друзья и лайки.
+ * Отдельный пользователь {@link #getBenchmarkUserId()} не имеет ни лайков, ни друзей и используется в бенчмарках записи.
+ */
+public final class SeededStorages implements AutoCloseable {
+    /**
+     * Количество друзей у каждого пользователя.
+     */
+    private static final int FRIENDS_PER_USER = 20;
+
+    /**
+     * Количество лайков от каждого пользователя.
+     */
+    private static final int LIKES_PER_USER = 10;
+
+    /**
+     * Количество жанров в справочнике.
+     */
+    private static final int GENRES_COUNT = 6;
+
+    /**
+     * Количество оценок в справочнике Ассоциации кинокомпаний.
+     */
+    private static final int MPA_COUNT = 5;
+
+    private final int size;
+
+    private final FilmStorage filmStorage;
+
+    private final UserStorage userStorage;
+
+    private final GenreStorage genreStorage;
+
+    private final MotionPictureAssociationStorage mpaStorage;
+
+    private final SingleConnectionDataSource dataSource;
+
+    private SeededStorages(int size, FilmStorage filmStorage, UserStorage userStorage, GenreStorage genreStorage,
+                           MotionPictureAssociationStorage mpaStorage, SingleConnectionDataSource dataSource) {
+        this.size = size;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Создать и заполнить хранилища.
+     *
+     * @param kind вид хранилищ.
+     * @param size количество пользователей и фильмов.
+     * @return заполненные хранилища.
+     */
+    public static SeededStorages create(StorageKind kind, int size) {
+        return switch (kind) {
+            case IN_MEMORY -> createInMemory(size);
+            case H2 -> createH2(size);
+        };
+    }
+
+    public FilmStorage getFilmStorage() {
+        return this.filmStorage;
+    }
+
+    public UserStorage getUserStorage() {
+        return this.userStorage;
+    }
+
+    /**
+     * Хранилище жанров; {@code null} для хранилищ в оперативной памяти.
+     */
+    public GenreStorage getGenreStorage() {
+        return this.genreStorage;
+    }
+
+    /**
+     * Хранилище оценок Ассоциации кинокомпаний; {@code null} для хранилищ в оперативной памяти.
+     */
+    public MotionPictureAssociationStorage getMpaStorage() {
+        return this.mpaStorage;
+    }
+
+    /**
+     * Источник данных БД H2; {@code null} для хранилищ в оперативной памяти.
+     */
+    public SingleConnectionDataSource getDataSource() {
+        return this.dataSource;
+    }
+
+    /**
+     * Идентификатор пользователя без лайков и друзей.
+     */
+    public long getBenchmarkUserId() {
+        return this.size + 1L;
+    }
+
+    /**
+     * Случайный идентификатор одного из засеянных пользователей или фильмов.
+     */
+    public long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, this.size + 1L);
+    }
+
+    /**
+     * Создать новый фильм со случайной оценкой и жанрами (объект не сохраняется).
+     */
+    public static Film newFilm(Random random) {
+        Film film = new Film();
+
+        film.setName("Фильм " + random.nextInt());
+        film.setDescription("Описание фильма");
+        film.setReleaseDate(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        film.setDuration(Duration.ofMinutes(60 + random.nextInt(120)));
+
+        MotionPictureAssociation mpa = new MotionPictureAssociation();
+        mpa.setId(1L + random.nextInt(MPA_COUNT));
+        mpa.setName("PG");
+        mpa.setDescription("Детям рекомендуется смотреть фильм с родителями");
+        film.setMpa(mpa);
+
+        Set<Genre> genres = new HashSet<>();
+        for (int i = 0, count = 1 + random.nextInt(3); i < count; i++) {
+            Genre genre = new Genre();
+            genre.setId(1L + random.nextInt(GENRES_COUNT));
+            genre.setName("Жанр");
+            genres.add(genre);
+        }
+        film.setGenres(genres);
+
+        return film;
+    }
+
+    @Override
+    public void close() {
+        if (this.dataSource != null) {
+            new JdbcTemplate(this.dataSource).execute("SHUTDOWN");
+            this.dataSource.destroy();
+        }
+    }
+
+    // region Facilities
+
+    private static SeededStorages createInMemory(int size) {
+        Random random = new Random(42);
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+
+        for (int i = 0; i <= size; i++) {
+            userStorage.create(newUser(i));
+        }
+        for (int i = 0; i < size; i++) {
+            filmStorage.create(newFilm(random));
+        }
+
+        for (long userId = 1; userId <= size; userId++) {
+            for (long friendId : randomIds(random, size, FRIENDS_PER_USER, userId)) {
+                userStorage.addFriend(userId, friendId);
+            }
+            for (long filmId : randomIds(random, size, LIKES_PER_USER, 0)) {
+                filmStorage.addLike(filmId, userId);
+            }
+        }
+
+        return new SeededStorages(size, filmStorage, userStorage, null, null, null);
+    }
+
+    private static SeededStorages createH2(int size) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "", true);
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        populate(jdbcTemplate, size);
+
+        return new SeededStorages(size, new FilmDbStorage(jdbcTemplate, new FilmRowMapper()), new UserDbStorage(jdbcTemplate, new UserRowMapper()),
+                new GenreDbStorage(jdbcTemplate, new GenreRowMapper()),
+                new MotionPictureAssociationDbStorage(jdbcTemplate, new MotionPictureAssociationRowMapper()), dataSource);
+    }
+
+    /**
+     * Заполнить БД с уже созданной схемой и справочниками синтетическим набором данных.
+     *
+     * @param jdbcTemplate доступ к БД.
+     * @param size         количество пользователей и фильмов.
+     */
+    static void populate(JdbcTemplate jdbcTemplate, int size) {
+        Random random = new Random(42);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i <= size; i++) {
+            User user = newUser(i);
+            users.add(new Object[]{user.getLogin(), user.getEmail(), user.getName(), user.getBirthday()});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (login, email, name, birthday) VALUES (?, ?, ?, ?)", users);
+
+        List<Object[]> films = new ArrayList<>();
+        List<Object[]> filmGenres = new ArrayList<>();
+        for (long filmId = 1; filmId <= size; filmId++) {
+            Film film = newFilm(random);
+            films.add(new Object[]{film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration().getSeconds(), film.getMpa().getId()});
+            for (Genre genre : film.getGenres()) {
+                filmGenres.add(new Object[]{filmId, genre.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)", films);
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmGenres);
+
+        List<Object[]> friends = new ArrayList<>();
+        List<Object[]> likes = new ArrayList<>();
+        for (long userId = 1; userId <= size; userId++) {
+            for (long friendId : randomIds(random, size, FRIENDS_PER_USER, userId)) {
+                friends.add(new Object[]{userId, friendId});
+            }
+            for (long filmId : randomIds(random, size, LIKES_PER_USER, 0)) {
+                likes.add(new Object[]{filmId, userId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO friends (left_user_id, right_user_id) VALUES (?, ?)", friends);
+        jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", likes);
+
+        new FilmDbStorage(jdbcTemplate, new FilmRowMapper()).rebuildLikesCount();
+    }
+
+    private static User newUser(int index) {
+        User user = new User();
+
+        user.setLogin("user" + index);
+        user.setEmail("user" + index + "@filmorate.ru");
+        user.setName("Пользователь " + index);
+        user.setBirthday(LocalDate.of(1970 + index % 40, 1 + index % 12, 1 + index % 28));
+
+        return user;
+    }
+
+    private static Set<Long> randomIds(Random random, int size, int count, long excludedId) {
+        Set<Long> ids = new HashSet<>();
+        int target = Math.min(count, size - 1);
+        while (ids.size() < target) {
+            long id = 1L + random.nextInt(size);
+            if (id != excludedId) {
+                ids.add(id);
+            }
+        }
+
+        return ids;
+    }
+
+    // endregion
+}
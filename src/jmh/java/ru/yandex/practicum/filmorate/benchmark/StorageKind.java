@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+/**
+ * Вид хранилища, на котором выполняется бенчмарк.
+ */
+public enum StorageKind {
+    /**
+     * Хранилища в оперативной памяти.
+     */
+    IN_MEMORY,
+
+    /**
+     * Хранилища в БД H2, работающей в оперативной памяти.
+     */
+    H2
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.controller;
+
+/**
+ * Разбор заголовка {@code Accept-Encoding} с учётом весов {@code q}.
+ * Способ сжатия с весом {@code q=0} клиент не принимает; способ, не указанный явно, принимается по весу {@code *}.
+ */
+final class AcceptEncoding {
+    private AcceptEncoding() {
+    }
+
+    /**
+     * Проверить, принимает ли клиент ответ, сжатый gzip.
+     *
+     * @param acceptEncoding значение заголовка {@code Accept-Encoding} или {@code null}, если заголовок не передан.
+     * @return {@code true}, если вес gzip больше нуля.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipWeight = null;
+        Double anyWeight = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzipWeight = weight(parts);
+            } else if (coding.equals("*")) {
+                anyWeight = weight(parts);
+            }
+        }
+
+        if (gzipWeight != null) {
+            return gzipWeight > 0;
+        }
+
+        return anyWeight != null && anyWeight > 0;
+    }
+
+    /**
+     * Получить вес способа сжатия из его параметров.
+     *
+     * @param parts способ сжатия и его параметры.
+     * @return вес от {@code 0} до {@code 1}; {@code 1}, если вес не указан, и {@code 0}, если он указан некорректно.
+     */
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 1 && Character.toLowerCase(parameter.charAt(0)) == 'q' && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+}
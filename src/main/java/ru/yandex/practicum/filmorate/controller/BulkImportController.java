@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.controller;
+
+// region imports
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.BulkItemResultDto;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FriendshipDto;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
+import ru.yandex.practicum.filmorate.util.serialization.NdjsonResponseWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+// endregion
+
+/**
+ * Контроллер, обрабатывающий запросы пакетного импорта.
+ * Тело запроса - JSON-массив или поток объектов в формате NDJSON, при заголовке {@code Content-Encoding: gzip} - сжатое.
+ * Элементы читаются потоком, не загружая тело запроса в память целиком, а результаты импорта каждого элемента
+ * возвращаются потоком в формате NDJSON по мере записи порций.
+ */
+@RequestMapping("/bulk")
+@RestController
+public class BulkImportController {
+    /**
+     * Сервис пакетного импорта.
+     */
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    /**
+     * Преобразование объектов в JSON и обратно.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Формирование потоковых ответов в формате NDJSON.
+     */
+    @Autowired
+    private NdjsonResponseWriter ndjsonResponseWriter;
+
+    /**
+     * Импортировать фильмы.
+     *
+     * @param request запрос.
+     * @return поток результатов импорта каждого фильма.
+     */
+    @PostMapping("/films")
+    public ResponseEntity<StreamingResponseBody> importFilms(HttpServletRequest request) {
+        return this.importValues(request, FilmDto.class, this.bulkImportService::importFilms);
+    }
+
+    /**
+     * Импортировать пользователей.
+     *
+     * @param request запрос.
+     * @return поток результатов импорта каждого пользователя.
+     */
+    @PostMapping("/users")
+    public ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) {
+        return this.importValues(request, UserDto.class, this.bulkImportService::importUsers);
+    }
+
+    /**
+     * Импортировать лайки.
+     *
+     * @param request запрос.
+     * @return поток результатов импорта каждого лайка.
+     */
+    @PostMapping("/likes")
+    public ResponseEntity<StreamingResponseBody> importLikes(HttpServletRequest request) {
+        return this.importValues(request, LikeDto.class, this.bulkImportService::importLikes);
+    }
+
+    /**
+     * Импортировать связи дружбы.
+     *
+     * @param request запрос.
+     * @return поток результатов импорта каждой связи.
+     */
+    @PostMapping("/friends")
+    public ResponseEntity<StreamingResponseBody> importFriendships(HttpServletRequest request) {
+        return this.importValues(request, FriendshipDto.class, this.bulkImportService::importFriendships);
+    }
+
+    // region Facilities
+
+    /**
+     * Импортировать элементы из тела запроса, передавая результаты в потоковый ответ.
+     *
+     * @param request  запрос.
+     * @param type     тип элементов.
+     * @param importer импорт элементов.
+     * @param <T>      тип элементов.
+     * @return поток результатов импорта.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> importValues(HttpServletRequest request, Class<T> type, Importer<T> importer) {
+        return this.ndjsonResponseWriter.stream(results -> {
+            try (MappingIterator<T> values = this.readValues(request, type)) {
+                importer.importValues(values, results);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Начать потоковое чтение элементов из тела запроса.
+     *
+     * @param request запрос.
+     * @param type    тип элементов.
+     * @param <T>     тип элементов.
+     * @return итератор по элементам.
+     */
+    private <T> MappingIterator<T> readValues(HttpServletRequest request, Class<T> type) throws IOException {
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            body = new GZIPInputStream(body);
+        }
+
+        return this.objectMapper.readerFor(type).readValues(body);
+    }
+
+    /**
+     * Импорт элементов с передачей результатов получателю.
+     *
+     * @param <T> тип элементов.
+     */
+    @FunctionalInterface
+    private interface Importer<T> {
+        /**
+         * Импортировать элементы.
+         *
+         * @param values  элементы.
+         * @param results получатель результатов импорта.
+         */
+        void importValues(MappingIterator<T> values, Consumer<BulkItemResultDto> results) throws IOException;
+    }
+
+    // endregion
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.controller;
+
+// region imports
+
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
+
+// endregion
+
+/**
+ * Построение сильных ETag ответов по версиям сущностей и коллекций.
+ * ETag вычисляется без загрузки и сериализации ответа, поэтому запрос с совпавшим {@code If-None-Match}
+ * получает ответ {@code 304 Not Modified} после единственного запроса версии.
+ */
+final class ETags {
+    private ETags() {
+    }
+
+    /**
+     * Получить ETag сущности.
+     *
+     * @param type    тип сущности.
+     * @param id      идентификатор сущности.
+     * @param version версия сущности.
+     * @return ETag.
+     */
+    static String of(String type, long id, long version) {
+        return String.format("\"%s-%d-%d\"", type, id, version);
+    }
+
+    /**
+     * Получить ETag коллекции.
+     *
+     * @param type    тип коллекции.
+     * @param version версия коллекции.
+     * @return ETag.
+     */
+    static String of(String type, CollectionVersion version) {
+        return String.format("\"%s-%d-%d-%d\"", type, version.getOwnerVersion(), version.getCount(), version.getItemsVersion());
+    }
+}
@@ -4,14 +4,22 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.exception.MissedEntityIdException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.service.FilmJsonCache;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.util.serialization.NdjsonResponseWriter;
 
 import java.util.Collection;
 
@@ -29,6 +37,18 @@ public class FilmController {
     @Autowired
     private FilmService filmService;
 
+    /**
+     * Формирование потоковых ответов в формате NDJSON.
+     */
+    @Autowired
+    private NdjsonResponseWriter ndjsonResponseWriter;
+
+    /**
+     * Кэш сериализованных в JSON фильмов.
+     */
+    @Autowired
+    private FilmJsonCache filmJsonCache;
+
     /**
      * Создать фильм.
      *
@@ -47,24 +67,74 @@ public class FilmController {
     }
 
     /**
-     * Получить коллекцию всех фильмов.
+     * Получить коллекцию фильмов.
+     * Если задан курсор или размер страницы, возвращается одна страница, а курсор следующей передаётся в заголовке ответа.
+     * Если коллекция не изменилась с версии из {@code If-None-Match}, возвращается {@code 304 Not Modified}.
      *
+     * @param after   идентификатор последнего фильма предыдущей страницы.
+     * @param limit   размер страницы.
+     * @param request запрос.
      * @return коллекция фильмов.
      */
     @GetMapping
-    public Collection<FilmDto> getAll() {
-        return FilmMapper.mapToFilmDtoCollection(this.filmService.getAll());
+    public ResponseEntity<Collection<FilmDto>> getAll(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit, WebRequest request) {
+        if (request.checkNotModified(ETags.of("films", this.filmService.getFilmsVersion()))) {
+            return null;
+        }
+
+        if (!Pagination.isRequested(after, limit)) {
+            return ResponseEntity.ok(FilmMapper.mapToFilmDtoCollection(this.filmService.getAll()));
+        }
+
+        return Pagination.toResponse(this.filmService.getPage(Pagination.cursor(after), Pagination.limit(limit)), FilmMapper::mapToFilmDtoCollection);
+    }
+
+    /**
+     * Выгрузить все фильмы потоком в формате NDJSON.
+     *
+     * @return поток фильмов.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return this.ndjsonResponseWriter.<FilmDto>stream(consumer -> this.filmService.streamAll(f -> consumer.accept(FilmMapper.mapToFilmDto(f))));
     }
 
     /**
      * Получить фильм по его идентификатору.
+     * Если фильм не изменился с версии из {@code If-None-Match}, возвращается {@code 304 Not Modified} после одного
+     * запроса версии, без обращения к кэшу. Иначе тело ответа берётся из кэша сериализованных фильмов; клиенту,
+     * принимающему gzip, отдаётся сжатый вариант со своим ETag. Если фильм изменился во время загрузки, ETag ответа
+     * строится по версии отданной записи кэша.
      *
-     * @param filmId идентификатор фильма.
-     * @return фильм.
+     * @param filmId         идентификатор фильма.
+     * @param acceptEncoding принимаемые клиентом способы сжатия.
+     * @param request        запрос.
+     * @return фильм в JSON.
      */
     @GetMapping("/{filmId}")
-    public FilmDto getFilmById(@PathVariable long filmId) {
-        return FilmMapper.mapToFilmDto(this.filmService.getFilmById(filmId));
+    public ResponseEntity<byte[]> getFilmById(@PathVariable long filmId, @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                              ServletWebRequest request) {
+        boolean gzip = AcceptEncoding.acceptsGzip(acceptEncoding);
+        String type = gzip ? "film-gzip" : "film";
+        long version = this.filmService.getFilmVersion(filmId);
+        if (request.checkNotModified(ETags.of(type, filmId, version))) {
+            return null;
+        }
+
+        FilmJsonCache.Entry entry = this.filmJsonCache.get(filmId, version, () -> this.filmService.getFilmById(filmId));
+        if (entry.version() != version) {
+            request.getResponse().setHeader(HttpHeaders.ETAG, ETags.of(type, filmId, entry.version()));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzip());
+        }
+
+        return response.body(entry.json());
     }
 
     /**
@@ -121,4 +191,16 @@ public class FilmController {
     public Collection<FilmDto> getPopularFilms(@RequestParam(defaultValue = "10") Long count) {
         return FilmMapper.mapToFilmDtoCollection(this.filmService.getPopularFilms(count));
     }
+
+    /**
+     * Получить фильмы, которым чаще всего ставили лайк пользователи, оценившие указанный фильм.
+     *
+     * @param filmId идентификатор фильма.
+     * @param limit  максимальное количество фильмов.
+     * @return список похожих фильмов.
+     */
+    @GetMapping("/{filmId}/similar")
+    public Collection<FilmDto> getSimilarFilms(@PathVariable Long filmId, @RequestParam(defaultValue = "10") Integer limit) {
+        return FilmMapper.mapToFilmDtoCollection(this.filmService.getSimilarFilms(filmId, Pagination.limit(limit)));
+    }
 }
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.controller;
+
+// region imports
+
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+// endregion
+
+/**
+ * Параметры и формирование ответов для постраничных (keyset) запросов.
+ * Тело ответа остаётся массивом, курсор следующей страницы передаётся в заголовке {@value #NEXT_CURSOR_HEADER}.
+ */
+final class Pagination {
+    /**
+     * Заголовок ответа с курсором следующей страницы.
+     */
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Размер страницы по умолчанию.
+     */
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Максимальный размер страницы.
+     */
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private Pagination() {
+    }
+
+    /**
+     * Проверить, запрошена ли постраничная выдача.
+     *
+     * @param after курсор из запроса.
+     * @param limit размер страницы из запроса.
+     * @return {@code true}, если задан хотя бы один из параметров.
+     */
+    static boolean isRequested(Long after, Integer limit) {
+        return after != null || limit != null;
+    }
+
+    /**
+     * Получить курсор, с которого начинается страница.
+     *
+     * @param after курсор из запроса.
+     * @return курсор.
+     */
+    static long cursor(Long after) {
+        return after == null ? 0 : after;
+    }
+
+    /**
+     * Получить размер страницы, ограниченный {@link #MAX_PAGE_SIZE}.
+     *
+     * @param limit размер страницы из запроса.
+     * @return размер страницы.
+     */
+    static int limit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Сформировать ответ со страницей.
+     *
+     * @param page   страница.
+     * @param mapper функция преобразования элементов страницы в трансферные объекты.
+     * @param <T>    тип элементов страницы.
+     * @param <D>    тип трансферных объектов.
+     * @return ответ со страницей.
+     */
+    static <T, D> ResponseEntity<Collection<D>> toResponse(Page<T> page, Function<Collection<T>, Collection<D>> mapper) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+        }
+
+        return response.body(mapper.apply(page.getItems()));
+    }
+}
@@ -3,13 +3,20 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
 import ru.yandex.practicum.filmorate.dto.UserDto;
 import ru.yandex.practicum.filmorate.exception.MissedEntityIdException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.util.serialization.NdjsonResponseWriter;
 
 import java.util.Collection;
 
@@ -25,11 +32,23 @@ public final class UserController {
      */
     private final UserService userService;
 
+    /**
+     * Сервис для работы с фильмами.
+     */
+    private final FilmService filmService;
+
+    /**
+     * Формирование потоковых ответов в формате NDJSON.
+     */
+    private final NdjsonResponseWriter ndjsonResponseWriter;
+
     /**
      * Конструктор.
      */
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, NdjsonResponseWriter ndjsonResponseWriter) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.ndjsonResponseWriter = ndjsonResponseWriter;
     }
 
     /**
@@ -49,13 +68,30 @@ public final class UserController {
     }
 
     /**
-     * Получить коллекцию всех пользователей.
+     * Получить коллекцию пользователей.
+     * Если задан курсор или размер страницы, возвращается одна страница, а курсор следующей передаётся в заголовке ответа.
      *
+     * @param after идентификатор последнего пользователя предыдущей страницы.
+     * @param limit размер страницы.
      * @return коллекция пользователей.
      */
     @GetMapping
-    public Collection<UserDto> getAll() {
-        return UserMapper.mapToUserCollectionDto(this.userService.getAll());
+    public ResponseEntity<Collection<UserDto>> getAll(@RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit) {
+        if (!Pagination.isRequested(after, limit)) {
+            return ResponseEntity.ok(UserMapper.mapToUserCollectionDto(this.userService.getAll()));
+        }
+
+        return Pagination.toResponse(this.userService.getPage(Pagination.cursor(after), Pagination.limit(limit)), UserMapper::mapToUserCollectionDto);
+    }
+
+    /**
+     * Выгрузить всех пользователей потоком в формате NDJSON.
+     *
+     * @return поток пользователей.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return this.ndjsonResponseWriter.<UserDto>stream(consumer -> this.userService.streamAll(u -> consumer.accept(UserMapper.mapToUserDto(u))));
     }
 
     /**
@@ -92,13 +128,27 @@ public final class UserController {
 
     /**
      * Получить друзей пользователя.
+     * Если задан курсор или размер страницы, возвращается одна страница, а курсор следующей передаётся в заголовке ответа.
+     * Если список друзей не изменился с версии из {@code If-None-Match}, возвращается {@code 304 Not Modified}.
      *
-     * @param userId идентификатор пользователя.
+     * @param userId  идентификатор пользователя.
+     * @param after   идентификатор последнего друга предыдущей страницы.
+     * @param limit   размер страницы.
+     * @param request запрос.
      * @return список друзей пользователя.
      */
     @GetMapping("/{userId}/friends")
-    public Collection<UserDto> getFriends(@PathVariable Long userId) {
-        return UserMapper.mapToUserCollectionDto(this.userService.getFriends(userId));
+    public ResponseEntity<Collection<UserDto>> getFriends(@PathVariable Long userId, @RequestParam(required = false) Long after, @RequestParam(required = false) Integer limit,
+                                                          WebRequest request) {
+        if (request.checkNotModified(ETags.of("friends-" + userId, this.userService.getFriendsVersion(userId)))) {
+            return null;
+        }
+
+        if (!Pagination.isRequested(after, limit)) {
+            return ResponseEntity.ok(UserMapper.mapToUserCollectionDto(this.userService.getFriends(userId)));
+        }
+
+        return Pagination.toResponse(this.userService.getFriendsPage(userId, Pagination.cursor(after), Pagination.limit(limit)), UserMapper::mapToUserCollectionDto);
     }
 
     /**
@@ -113,6 +163,18 @@ public final class UserController {
         return UserMapper.mapToUserCollectionDto(this.userService.getCommonFriends(userId, otherUserId));
     }
 
+    /**
+     * Получить рекомендации друзей, упорядоченные по убыванию количества общих друзей.
+     *
+     * @param userId идентификатор пользователя.
+     * @param limit  максимальное количество рекомендаций.
+     * @return список рекомендуемых пользователей.
+     */
+    @GetMapping("/{userId}/friends/suggestions")
+    public Collection<UserDto> getFriendSuggestions(@PathVariable Long userId, @RequestParam(defaultValue = "10") Integer limit) {
+        return UserMapper.mapToUserCollectionDto(this.userService.getFriendSuggestions(userId, Pagination.limit(limit)));
+    }
+
     /**
      * Удалить из друзей.
      *
@@ -124,4 +186,16 @@ public final class UserController {
     public void removeFriend(@PathVariable Long userId, @PathVariable Long friendId) {
         this.userService.removeFriend(userId, friendId);
     }
+
+    /**
+     * Получить рекомендации фильмов для пользователя на основе лайков похожих на него пользователей.
+     *
+     * @param userId идентификатор пользователя.
+     * @param limit  максимальное количество рекомендаций.
+     * @return список рекомендуемых фильмов.
+     */
+    @GetMapping("/{userId}/recommendations")
+    public Collection<FilmDto> getRecommendations(@PathVariable Long userId, @RequestParam(defaultValue = "10") Integer limit) {
+        return FilmMapper.mapToFilmDtoCollection(this.filmService.getRecommendations(userId, Pagination.limit(limit)));
+    }
 }
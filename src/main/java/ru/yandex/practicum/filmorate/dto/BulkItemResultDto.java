@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * Трансферный объект для результата импорта одного элемента пакета.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class BulkItemResultDto {
+    /**
+     * Порядковый номер элемента в пакете, начиная с нуля.
+     */
+    private final long index;
+
+    /**
+     * Идентификатор созданной сущности.
+     */
+    private Long id;
+
+    /**
+     * Описание ошибки; {@code null}, если элемент импортирован.
+     */
+    private String error;
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Трансферный объект для сущности "Дружба".
+ */
+@Data
+public final class FriendshipDto {
+    /**
+     * Идентификатор пользователя.
+     */
+    @NotNull(message = "Не задан идентификатор пользователя")
+    private Long userId;
+
+    /**
+     * Идентификатор друга.
+     */
+    @NotNull(message = "Не задан идентификатор друга")
+    private Long friendId;
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Трансферный объект для сущности "Лайк".
+ */
+@Data
+public final class LikeDto {
+    /**
+     * Идентификатор фильма.
+     */
+    @NotNull(message = "Не задан идентификатор фильма")
+    private Long filmId;
+
+    /**
+     * Идентификатор пользователя.
+     */
+    @NotNull(message = "Не задан идентификатор пользователя")
+    private Long userId;
+}
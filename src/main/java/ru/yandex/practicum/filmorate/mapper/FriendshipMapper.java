@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.dto.FriendshipDto;
+import ru.yandex.practicum.filmorate.model.Friendship;
+
+@NoArgsConstructor
+public final class FriendshipMapper {
+    public static Friendship mapToFriendship(FriendshipDto dto) {
+        Friendship friendship = new Friendship();
+
+        friendship.setUserId(dto.getUserId());
+        friendship.setFriendId(dto.getFriendId());
+
+        return friendship;
+    }
+}
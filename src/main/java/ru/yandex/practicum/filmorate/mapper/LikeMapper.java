@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+import ru.yandex.practicum.filmorate.model.Like;
+
+@NoArgsConstructor
+public final class LikeMapper {
+    public static Like mapToLike(LikeDto dto) {
+        Like like = new Like();
+
+        like.setFilmId(dto.getFilmId());
+        like.setUserId(dto.getUserId());
+
+        return like;
+    }
+}
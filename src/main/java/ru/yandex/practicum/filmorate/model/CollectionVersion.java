@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.model;
+
+// region imports
+
+import lombok.Data;
+
+// endregion
+
+/**
+ * Версия коллекции сущностей.
+ * Версии сущностей только растут, поэтому любое изменение коллекции меняет хотя бы одно из значений.
+ */
+@Data
+public class CollectionVersion {
+    /**
+     * Версия владельца коллекции (например, пользователя для списка его друзей); {@code 0} для коллекций верхнего уровня.
+     */
+    private final long ownerVersion;
+
+    /**
+     * Количество элементов коллекции.
+     */
+    private final long count;
+
+    /**
+     * Сумма версий элементов коллекции.
+     */
+    private final long itemsVersion;
+}
@@ -51,4 +51,9 @@ public class Film {
      * Пользовательские лайки.
      */
     private Collection<Long> usersLikes = new HashSet<>();
+
+    /**
+     * Версия фильма; увеличивается при каждом изменении фильма и его лайков.
+     */
+    private long version;
 }
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+// region imports
+
+import lombok.Data;
+
+// endregion
+
+/**
+ * Связь дружбы пользователей.
+ */
+@Data
+public class Friendship {
+    /**
+     * Идентификатор пользователя.
+     */
+    private Long userId;
+
+    /**
+     * Идентификатор друга.
+     */
+    private Long friendId;
+}
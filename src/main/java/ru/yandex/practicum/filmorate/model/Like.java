@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+// region imports
+
+import lombok.Data;
+
+// endregion
+
+/**
+ * Пользовательский лайк фильма.
+ */
+@Data
+public class Like {
+    /**
+     * Идентификатор фильма.
+     */
+    private Long filmId;
+
+    /**
+     * Идентификатор пользователя.
+     */
+    private Long userId;
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.model;
+
+// region imports
+
+import lombok.Data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// endregion
+
+/**
+ * Страница выборки при постраничном (keyset) обходе.
+ *
+ * @param <T> тип элементов страницы.
+ */
+@Data
+public class Page<T> {
+    /**
+     * Элементы страницы, упорядоченные по идентификатору.
+     */
+    private final Collection<T> items;
+
+    /**
+     * Курсор для получения следующей страницы; {@code null}, если страница последняя.
+     */
+    private final Long nextCursor;
+
+    /**
+     * Собрать страницу из выборки, запрошенной с запасом в один элемент.
+     *
+     * @param rows        выборка размером не более {@code limit + 1}, упорядоченная по идентификатору.
+     * @param limit       размер страницы.
+     * @param idExtractor функция получения идентификатора элемента.
+     * @param <T>         тип элементов страницы.
+     * @return страница.
+     */
+    public static <T> Page<T> of(List<T> rows, int limit, Function<T, Long> idExtractor) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, limit);
+        return new Page<>(items, idExtractor.apply(items.get(items.size() - 1)));
+    }
+}
@@ -44,4 +44,9 @@ public class User {
      * Список друзей.
      */
     private Set<Long> friends = new HashSet<>();
+
+    /**
+     * Версия пользователя; увеличивается при каждом изменении пользователя и списка его друзей.
+     */
+    private long version;
 }
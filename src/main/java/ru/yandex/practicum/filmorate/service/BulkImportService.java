@@ -0,0 +1,374 @@
+package ru.yandex.practicum.filmorate.service;
+
+// region imports
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.dto.BulkItemResultDto;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.dto.FriendshipDto;
+import ru.yandex.practicum.filmorate.dto.LikeDto;
+import ru.yandex.practicum.filmorate.dto.UserDto;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.mapper.FriendshipMapper;
+import ru.yandex.practicum.filmorate.mapper.LikeMapper;
+import ru.yandex.practicum.filmorate.mapper.UserMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.UserStorage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// endregion
+
+/**
+ * Сервис пакетного импорта фильмов, пользователей, лайков и связей дружбы.
+ * Элементы проверяются по мере чтения, а корректные записываются в БД пакетными запросами
+ * порциями из {@value #CHUNK_SIZE} прочитанных элементов, каждая порция - в отдельной транзакции.
+ * Результаты импорта передаются получателю после записи каждой порции, поэтому в памяти хранится не больше одной порции.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+    /**
+     * Количество элементов, записываемых в одной транзакции.
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    /**
+     * Хранилище фильмов.
+     */
+    @Autowired
+    @Qualifier(FilmDbStorage.CLASS_NAME)
+    private FilmStorage filmStorage;
+
+    /**
+     * Хранилище пользователей.
+     */
+    @Autowired
+    @Qualifier(UserDbStorage.CLASS_NAME)
+    private UserStorage userStorage;
+
+    /**
+     * Валидатор трансферных объектов.
+     */
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Шаблон для выполнения порций в транзакции.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Граф лайков, общий для индексов рекомендаций и похожих фильмов.
+     */
+    @Autowired
+    private LikeGraph likeGraph;
+
+    /**
+     * Граф дружбы пользователей.
+     */
+    @Autowired
+    private FriendshipGraph friendshipGraph;
+
+    /**
+     * Импортировать фильмы.
+     * Оценки Ассоциации кинокомпаний и жанры проверяются по кэшированным справочникам.
+     *
+     * @param films   фильмы.
+     * @param results получатель результатов импорта каждого фильма в порядке чтения.
+     */
+    public void importFilms(MappingIterator<FilmDto> films, Consumer<BulkItemResultDto> results) throws IOException {
+        this.importInChunks(films, chunk -> {
+            List<Film> created = this.filmStorage.createAll(chunk.stream().map(item -> FilmMapper.mapToFilm(item.value())).toList());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).result().setId(created.get(i).getId());
+            }
+
+            return () -> {
+            };
+        }, results);
+    }
+
+    /**
+     * Импортировать пользователей.
+     * Пользователи с уже используемым e-mail, в том числе внутри пакета, не импортируются.
+     *
+     * @param users   пользователи.
+     * @param results получатель результатов импорта каждого пользователя в порядке чтения.
+     */
+    public void importUsers(MappingIterator<UserDto> users, Consumer<BulkItemResultDto> results) throws IOException {
+        this.importInChunks(users, chunk -> {
+            Set<String> usedEmails = new HashSet<>(this.userStorage.findUsedEmails(chunk.stream().map(item -> item.value().getEmail()).toList()));
+
+            List<BulkItem<UserDto>> accepted = new ArrayList<>();
+            chunk.forEach(item -> {
+                if (usedEmails.add(item.value().getEmail())) {
+                    accepted.add(item);
+                } else {
+                    item.result().setError("E-mail пользователя (" + item.value().getEmail() + ") уже используется");
+                }
+            });
+
+            List<User> created = this.userStorage.createAll(accepted.stream().map(item -> {
+                User user = UserMapper.mapToUser(item.value());
+                if (user.getName() == null) {
+                    user.setName(user.getLogin());
+                }
+
+                return user;
+            }).toList());
+            for (int i = 0; i < accepted.size(); i++) {
+                accepted.get(i).result().setId(created.get(i).getId());
+            }
+
+            return () -> {
+            };
+        }, results);
+    }
+
+    /**
+     * Импортировать лайки.
+     * Существование фильмов и пользователей проверяется одним запросом на порцию; уже проверенные
+     * идентификаторы запоминаются до конца импорта.
+     *
+     * @param likes   лайки.
+     * @param results получатель результатов импорта каждого лайка в порядке чтения.
+     */
+    public void importLikes(MappingIterator<LikeDto> likes, Consumer<BulkItemResultDto> results) throws IOException {
+        Set<Long> knownFilmIds = new HashSet<>();
+        Set<Long> knownUserIds = new HashSet<>();
+
+        this.importInChunks(likes, chunk -> {
+            this.resolveIds(chunk, item -> item.value().getFilmId(), knownFilmIds, this.filmStorage::getExistingIds);
+            this.resolveIds(chunk, item -> item.value().getUserId(), knownUserIds, this.userStorage::findExistingIds);
+
+            List<Like> accepted = new ArrayList<>();
+            chunk.forEach(item -> {
+                LikeDto like = item.value();
+                if (!knownFilmIds.contains(like.getFilmId())) {
+                    item.result().setError(String.format("Фильм с идентификатором %d не найден", like.getFilmId()));
+                } else if (!knownUserIds.contains(like.getUserId())) {
+                    item.result().setError(String.format("Пользователь с идентификатором %d не найден", like.getUserId()));
+                } else {
+                    accepted.add(LikeMapper.mapToLike(like));
+                }
+            });
+
+            this.filmStorage.addLikes(accepted);
+
+            return () -> accepted.forEach(like -> this.likeGraph.like(like.getFilmId(), like.getUserId()));
+        }, results);
+    }
+
+    /**
+     * Импортировать связи дружбы.
+     * Существование пользователей проверяется одним запросом на порцию; уже проверенные
+     * идентификаторы запоминаются до конца импорта.
+     *
+     * @param friendships   связи дружбы.
+     * @param results получатель результатов импорта каждой связи в порядке чтения.
+     */
+    public void importFriendships(MappingIterator<FriendshipDto> friendships, Consumer<BulkItemResultDto> results) throws IOException {
+        Set<Long> knownUserIds = new HashSet<>();
+
+        this.importInChunks(friendships, chunk -> {
+            this.resolveIds(chunk, item -> item.value().getUserId(), knownUserIds, this.userStorage::findExistingIds);
+            this.resolveIds(chunk, item -> item.value().getFriendId(), knownUserIds, this.userStorage::findExistingIds);
+
+            List<Friendship> accepted = new ArrayList<>();
+            chunk.forEach(item -> {
+                FriendshipDto friendship = item.value();
+                if (!knownUserIds.contains(friendship.getUserId())) {
+                    item.result().setError(String.format("Пользователь с идентификатором %d не найден", friendship.getUserId()));
+                } else if (!knownUserIds.contains(friendship.getFriendId())) {
+                    item.result().setError(String.format("Пользователь с идентификатором %d не найден", friendship.getFriendId()));
+                } else {
+                    accepted.add(FriendshipMapper.mapToFriendship(friendship));
+                }
+            });
+
+            this.userStorage.addFriends(accepted);
+
+            return () -> accepted.forEach(f -> this.friendshipGraph.addFriendship(f.getUserId(), f.getFriendId()));
+        }, results);
+    }
+
+    // region Facilities
+
+    /**
+     * Элемент пакета вместе с результатом его импорта.
+     *
+     * @param value  элемент.
+     * @param result результат импорта.
+     * @param <T>    тип элемента.
+     */
+    private record BulkItem<T>(T value, BulkItemResultDto result) {
+    }
+
+    /**
+     * Прочитать элементы, проверить каждый валидатором и записать корректные порциями.
+     * Элемент, который не удалось разобрать как объект нужного типа, отмечается ошибкой, и чтение продолжается
+     * со следующего элемента. При нарушении синтаксиса JSON чтение останавливается: ошибкой отмечается
+     * позиция нарушения, а уже прочитанные элементы записываются.
+     *
+     * @param items    элементы.
+     * @param importer запись порции в БД; возвращает действие, выполняемое после фиксации транзакции.
+     * @param results  получатель результатов импорта каждого элемента в порядке чтения.
+     * @param <T>      тип элементов.
+     */
+    private <T> void importInChunks(MappingIterator<T> items, Function<List<BulkItem<T>>, Runnable> importer,
+                                    Consumer<BulkItemResultDto> results) throws IOException {
+        List<BulkItemResultDto> pending = new ArrayList<>(CHUNK_SIZE);
+        List<BulkItem<T>> chunk = new ArrayList<>(CHUNK_SIZE);
+        long index = 0;
+
+        while (true) {
+            BulkItemResultDto result = new BulkItemResultDto(index);
+            T item;
+            try {
+                if (!items.hasNextValue()) {
+                    break;
+                }
+                item = items.nextValue();
+            } catch (StreamReadException ex) {
+                result.setError("Некорректный JSON: " + ex.getOriginalMessage());
+                pending.add(result);
+                break;
+            } catch (JsonProcessingException ex) {
+                item = null;
+                result.setError("Некорректный элемент: " + ex.getOriginalMessage());
+            }
+
+            index++;
+            pending.add(result);
+
+            if (result.getError() == null) {
+                String error = this.validate(item);
+                if (error != null) {
+                    result.setError(error);
+                } else {
+                    chunk.add(new BulkItem<>(item, result));
+                }
+            }
+
+            if (pending.size() == CHUNK_SIZE) {
+                this.importChunk(chunk, importer);
+                this.publish(pending, results);
+                chunk.clear();
+            }
+        }
+
+        this.importChunk(chunk, importer);
+        this.publish(pending, results);
+    }
+
+    /**
+     * Записать порцию элементов в одной транзакции.
+     * Если запись не удалась, ошибка записи проставляется элементам порции, у которых ещё нет ошибки,
+     * а импорт продолжается со следующей порции.
+     *
+     * @param chunk    порция элементов.
+     * @param importer запись порции в БД.
+     * @param <T>      тип элементов.
+     */
+    private <T> void importChunk(List<BulkItem<T>> chunk, Function<List<BulkItem<T>>, Runnable> importer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            Runnable afterCommit = this.transactionTemplate.execute(status -> importer.apply(chunk));
+            if (afterCommit != null) {
+                afterCommit.run();
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Не удалось импортировать порцию из {} элементов", chunk.size(), ex);
+            chunk.forEach(item -> {
+                item.result().setId(null);
+                if (item.result().getError() == null) {
+                    item.result().setError("Не удалось сохранить данные: " + ex.getMostSpecificCause().getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Передать накопленные результаты получателю и очистить их.
+     *
+     * @param pending результаты импорта в порядке чтения.
+     * @param results получатель результатов.
+     */
+    private void publish(List<BulkItemResultDto> pending, Consumer<BulkItemResultDto> results) {
+        pending.forEach(results);
+        pending.clear();
+    }
+
+    /**
+     * Проверить элемент валидатором.
+     *
+     * @param item элемент.
+     * @return описание ошибок или {@code null}, если элемент корректен.
+     */
+    private String validate(Object item) {
+        if (item == null) {
+            return "Пустой элемент";
+        }
+
+        try {
+            Set<ConstraintViolation<Object>> violations = this.validator.validate(item);
+            if (violations.isEmpty()) {
+                return null;
+            }
+
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+        } catch (jakarta.validation.ValidationException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    /**
+     * Дополнить множество известных идентификаторов теми идентификаторами порции, которые существуют в БД.
+     * В БД запрашиваются только ещё не проверенные идентификаторы.
+     *
+     * @param chunk       порция элементов.
+     * @param idExtractor функция получения идентификатора из элемента.
+     * @param knownIds    идентификаторы, существование которых уже подтверждено.
+     * @param lookup      запрос существующих идентификаторов.
+     * @param <T>         тип элементов.
+     */
+    private <T> void resolveIds(List<BulkItem<T>> chunk, Function<BulkItem<T>, Long> idExtractor, Set<Long> knownIds,
+                                Function<Set<Long>, Set<Long>> lookup) {
+        Set<Long> unknownIds = chunk.stream()
+                .map(idExtractor)
+                .filter(id -> !knownIds.contains(id))
+                .collect(Collectors.toSet());
+
+        knownIds.addAll(lookup.apply(unknownIds));
+    }
+
+    // endregion
+}
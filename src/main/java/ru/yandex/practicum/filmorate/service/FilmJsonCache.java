@@ -0,0 +1,174 @@
+package ru.yandex.practicum.filmorate.service;
+
+// region imports
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.dto.FilmDto;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.util.jfr.CacheAccessEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// endregion
+
+/**
+ * Кэш сериализованных в JSON фильмов.
+ * Для каждого фильма хранится тело ответа {@code GET /films/{filmId}} и его сжатый gzip вариант вместе с версией фильма,
+ * по которой они построены, поэтому при попадании в кэш не выполняются ни преобразование в {@link FilmDto}, ни сериализация.
+ * Запись удаляется при обновлении фильма и изменении его лайков; запись с версией, отличной от запрошенной, не используется.
+ * Количество записей ограничено свойством {@code filmorate.films.json-cache.max-size}: при заполненном кэше новая запись
+ * вытесняет запись, к которой дольше всего не обращались (LRU). Загрузка и сериализация выполняются вне блокировки кэша.
+ */
+@Component
+public class FilmJsonCache {
+    /**
+     * Название кэша в событиях JFR.
+     */
+    static final String CACHE_NAME = "FilmJsonCache";
+
+    /**
+     * Сериализатор фильмов.
+     */
+    private final ObjectWriter objectWriter;
+
+    /**
+     * Сериализованные фильмы по идентификатору фильма в порядке обращения, от давнего к недавнему.
+     */
+    private final Map<Long, Entry> entries;
+
+    /**
+     * Блокировка, защищающая записи и порядок обращения к ним.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Конструктор.
+     *
+     * @param objectMapper преобразователь JSON приложения.
+     * @param maxSize      максимальное количество записей.
+     */
+    public FilmJsonCache(ObjectMapper objectMapper, @Value("${filmorate.films.json-cache.max-size:10000}") int maxSize) {
+        this.objectWriter = objectMapper.writerFor(FilmDto.class);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FilmJsonCache.Entry> eldest) {
+                return this.size() > maxSize;
+            }
+        };
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Получить сериализованный фильм указанной версии.
+     * При отсутствии записи или несовпадении версии фильм загружается, сериализуется и сохраняется в кэш.
+     *
+     * @param filmId  идентификатор фильма.
+     * @param version версия фильма.
+     * @param loader  загрузка фильма.
+     * @return сериализованный фильм; его версия может быть новее запрошенной, если фильм изменился во время загрузки.
+     */
+    public Entry get(long filmId, long version, Supplier<Film> loader) {
+        Entry entry;
+        this.lock.lock();
+        try {
+            entry = this.entries.get(filmId);
+        } finally {
+            this.lock.unlock();
+        }
+
+        CacheAccessEvent.emit(CACHE_NAME, entry != null && entry.version() == version);
+        if (entry != null && entry.version() == version) {
+            return entry;
+        }
+
+        Entry loaded = this.serialize(loader.get());
+        this.lock.lock();
+        try {
+            Entry current = this.entries.get(filmId);
+            if (current == null || current.version() < loaded.version()) {
+                this.entries.put(filmId, loaded);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Удалить сериализованный фильм из кэша.
+     *
+     * @param filmId идентификатор фильма.
+     */
+    public void invalidate(long filmId) {
+        this.lock.lock();
+        try {
+            this.entries.remove(filmId);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Удалить из кэша все сериализованные фильмы.
+     * Используется после изменения справочников: названия жанров и оценок входят в сериализованные фильмы,
+     * но не меняют их версию.
+     */
+    public void invalidateAll() {
+        this.lock.lock();
+        try {
+            this.entries.clear();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // region Facilities
+
+    /**
+     * Сериализовать фильм в JSON и сжать результат.
+     *
+     * @param film фильм.
+     * @return сериализованный фильм.
+     */
+    private Entry serialize(Film film) {
+        try {
+            byte[] json = this.objectWriter.writeValueAsBytes(FilmMapper.mapToFilmDto(film));
+
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 2 + 32);
+            try (GZIPOutputStream outputStream = new GZIPOutputStream(gzip)) {
+                outputStream.write(json);
+            }
+
+            return new Entry(film.getVersion(), json, gzip.toByteArray());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(String.format("Не удалось сериализовать фильм с идентификатором %d", film.getId()), ex);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // endregion
+
+    /**
+     * Сериализованный фильм.
+     *
+     * @param version версия фильма.
+     * @param json    тело ответа в JSON.
+     * @param gzip    тело ответа в JSON, сжатое gzip.
+     */
+    public record Entry(long version, byte[] json, byte[] gzip) {
+    }
+}
@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.service;
+
+// region imports
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// endregion
+
+/**
+ * Индекс рекомендаций фильмов на основе схожести пользователей (user-based collaborative filtering).
+ * Для каждого пользователя хранится количество общих лайков с другими пользователями. Индекс строится
+ * параллельно по пользователям по графу лайков {@link LikeGraph} и обновляется инкрементально при каждом
+ * изменении графа, поэтому запрос рекомендаций не обращается к таблице лайков.
+ */
+@Component
+public class FilmRecommendationIndex implements LikeGraph.Listener {
+    /**
+     * Максимальное количество лайков фильма, при котором он учитывается в схожести пользователей.
+     * Лайки очень популярных фильмов почти ничего не говорят о вкусах и дают квадратичный рост индекса.
+     */
+    static final int MAX_FILM_LIKERS = 1_000;
+
+    /**
+     * Количество наиболее похожих пользователей, фильмы которых участвуют в рекомендациях.
+     */
+    static final int NEIGHBOURS_COUNT = 50;
+
+    /**
+     * Граф лайков.
+     */
+    private final LikeGraph likeGraph;
+
+    /**
+     * Количество общих лайков пользователя с другими пользователями.
+     */
+    private final ConcurrentMap<Long, ConcurrentMap<Long, Integer>> overlaps;
+
+    /**
+     * Конструктор.
+     *
+     * @param likeGraph граф лайков.
+     */
+    public FilmRecommendationIndex(LikeGraph likeGraph) {
+        this.likeGraph = likeGraph;
+        this.overlaps = new ConcurrentHashMap<>();
+        likeGraph.addListener(this);
+    }
+
+    /**
+     * Построить индекс по всем лайкам графа.
+     * Схожесть пользователей вычисляется параллельно в общем пуле fork/join: каждый пользователь обрабатывается независимо.
+     */
+    @PostConstruct
+    @Override
+    public void load() {
+        this.overlaps.clear();
+
+        this.likeGraph.getUsers().parallelStream().forEach(userId -> {
+            Map<Long, Integer> userOverlaps = new HashMap<>();
+
+            this.likeGraph.getLikes(userId).forEach(filmId -> {
+                Set<Long> likers = this.likeGraph.getLikers(filmId);
+                if (likers.size() <= MAX_FILM_LIKERS) {
+                    likers.forEach(likerId -> {
+                        if (!likerId.equals(userId)) {
+                            userOverlaps.merge(likerId, 1, Integer::sum);
+                        }
+                    });
+                }
+            });
+
+            this.overlaps.put(userId, new ConcurrentHashMap<>(userOverlaps));
+        });
+    }
+
+    /**
+     * Учесть лайк пользователя: изменить количество общих лайков с остальными пользователями фильма.
+     *
+     * @param filmId     идентификатор фильма.
+     * @param userId     идентификатор пользователя.
+     * @param filmLikers пользователи, поставившие лайк фильму, включая {@code userId}.
+     * @param userLikes  фильмы, которым поставил лайк пользователь.
+     */
+    @Override
+    public void onLike(Long filmId, Long userId, Set<Long> filmLikers, Set<Long> userLikes) {
+        if (filmLikers.size() <= MAX_FILM_LIKERS) {
+            this.link(userId, filmLikers, 1);
+        } else if (filmLikers.size() == MAX_FILM_LIKERS + 1) {
+            this.linkAll(filmLikers, userId, -1);
+        }
+    }
+
+    /**
+     * Учесть удаление лайка пользователя: изменить количество общих лайков с остальными пользователями фильма.
+     *
+     * @param filmId     идентификатор фильма.
+     * @param userId     идентификатор пользователя.
+     * @param filmLikers оставшиеся пользователи, поставившие лайк фильму.
+     * @param userLikes  оставшиеся фильмы, которым поставил лайк пользователь.
+     */
+    @Override
+    public void onUnlike(Long filmId, Long userId, Set<Long> filmLikers, Set<Long> userLikes) {
+        if (filmLikers.size() < MAX_FILM_LIKERS) {
+            this.link(userId, filmLikers, -1);
+        } else if (filmLikers.size() == MAX_FILM_LIKERS) {
+            this.linkAll(filmLikers, null, 1);
+        }
+    }
+
+    /**
+     * Получить рекомендации фильмов для пользователя: фильмы, понравившиеся наиболее похожим на него пользователям,
+     * которым он сам ещё не поставил лайк. Фильмы упорядочены по сумме схожести пользователей, которым они понравились.
+     *
+     * @param userId идентификатор пользователя.
+     * @param limit  максимальное количество рекомендаций.
+     * @return идентификаторы рекомендуемых фильмов.
+     */
+    public List<Long> recommend(Long userId, int limit) {
+        Set<Long> userLikes = this.likeGraph.getLikes(userId);
+        Map<Long, Integer> userOverlaps = this.overlaps.getOrDefault(userId, new ConcurrentHashMap<>());
+
+        Map<Long, Long> scores = new HashMap<>();
+        userOverlaps.entrySet()
+                .stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(NEIGHBOURS_COUNT)
+                .forEach(neighbour -> this.likeGraph.getLikes(neighbour.getKey()).forEach(filmId -> {
+                    if (!userLikes.contains(filmId)) {
+                        scores.merge(filmId, (long) neighbour.getValue(), Long::sum);
+                    }
+                }));
+
+        return scores.entrySet()
+                .stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // region Facilities
+
+    /**
+     * Изменить количество общих лайков пользователя с каждым из пользователей.
+     *
+     * @param userId идентификатор пользователя.
+     * @param likers пользователи, с которыми меняется количество общих лайков.
+     * @param delta  изменение количества общих лайков.
+     */
+    private void link(Long userId, Collection<Long> likers, int delta) {
+        likers.forEach(likerId -> {
+            if (!likerId.equals(userId)) {
+                this.adjust(userId, likerId, delta);
+                this.adjust(likerId, userId, delta);
+            }
+        });
+    }
+
+    /**
+     * Изменить количество общих лайков для всех пар пользователей фильма.
+     * Используется, когда фильм начинает или перестаёт учитываться в схожести из-за {@link #MAX_FILM_LIKERS}.
+     *
+     * @param likers  пользователи, поставившие лайк фильму.
+     * @param exclude пользователь, пары с которым не учитываются; может быть {@code null}.
+     * @param delta   изменение количества общих лайков.
+     */
+    private void linkAll(Collection<Long> likers, Long exclude, int delta) {
+        likers.forEach(userId -> {
+            if (!userId.equals(exclude)) {
+                likers.forEach(likerId -> {
+                    if (!likerId.equals(userId) && !likerId.equals(exclude)) {
+                        this.adjust(userId, likerId, delta);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Изменить количество общих лайков пользователя с другим пользователем.
+     *
+     * @param userId  идентификатор пользователя.
+     * @param otherId идентификатор другого пользователя.
+     * @param delta   изменение количества общих лайков.
+     */
+    private void adjust(Long userId, Long otherId, int delta) {
+        this.overlaps.computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
+                .merge(otherId, delta, (count, d) -> count + d == 0 ? null : count + d);
+    }
+
+    // endregion
+}
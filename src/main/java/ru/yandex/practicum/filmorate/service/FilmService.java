@@ -3,27 +3,37 @@ package ru.yandex.practicum.filmorate.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.storage.CachedGenreStorage;
+import ru.yandex.practicum.filmorate.storage.CachedMotionPictureAssociationStorage;
 import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
-import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
-import ru.yandex.practicum.filmorate.storage.MotionPictureAssociationDbStorage;
 import ru.yandex.practicum.filmorate.storage.UserDbStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.MotionPictureAssociationStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.UserStorage;
+import ru.yandex.practicum.filmorate.util.jfr.FlightRecorded;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Сервис для работы с фильмами.
  */
+@FlightRecorded
 @Service
 public class FilmService {
+    /**
+     * Количество фильмов, для которых справочные данные загружаются за один раз при потоковой выгрузке.
+     */
+    private static final int STREAM_CHUNK_SIZE = 500;
+
     /**
      * Хранилище фильмов.
      */
@@ -35,14 +45,14 @@ public class FilmService {
      * Хранилище жанров.
      */
     @Autowired
-    @Qualifier(GenreDbStorage.CLASS_NAME)
+    @Qualifier(CachedGenreStorage.CLASS_NAME)
     private GenreStorage genreStorage;
 
     /**
      * Хранилище оценок Ассоциации кинокомпаний.
      */
     @Autowired
-    @Qualifier(MotionPictureAssociationDbStorage.CLASS_NAME)
+    @Qualifier(CachedMotionPictureAssociationStorage.CLASS_NAME)
     private MotionPictureAssociationStorage mpaStorage;
 
     /**
@@ -52,12 +62,43 @@ public class FilmService {
     @Qualifier(UserDbStorage.CLASS_NAME)
     private UserStorage userStorage;
 
+    /**
+     * Граф лайков, общий для индексов рекомендаций и похожих фильмов.
+     */
+    @Autowired
+    private LikeGraph likeGraph;
+
+    /**
+     * Индекс рекомендаций фильмов.
+     */
+    @Autowired
+    private FilmRecommendationIndex recommendationIndex;
+
+    /**
+     * Индекс похожих фильмов.
+     */
+    @Autowired
+    private FilmSimilarityIndex similarityIndex;
+
+    /**
+     * Кэш сериализованных в JSON фильмов.
+     */
+    @Autowired
+    private FilmJsonCache filmJsonCache;
+
+    /**
+     * Очередь отложенной записи лайков; {@code null}, если лайки записываются сразу.
+     */
+    @Autowired(required = false)
+    private LikeWriteBehindQueue likeWriteBehindQueue;
+
     /**
      * Создать фильм.
      *
      * @param film фильм.
      * @return созданный фильм.
      */
+    @Transactional
     public Film create(Film film) {
         Optional<MotionPictureAssociation> mpa = this.mpaStorage.getMpaById(film.getMpa().getId());
         if (mpa.isEmpty()) {
@@ -83,20 +124,46 @@ public class FilmService {
      *
      * @return список всех фильмов.
      */
+    @Transactional(readOnly = true)
     public Collection<Film> getAll() {
-        Collection<Film> films = this.filmStorage.getAll();
+        return this.hydrate(this.filmStorage.getAll());
+    }
 
-        films.forEach(f -> {
-            Optional<MotionPictureAssociation> mpa = this.mpaStorage.getMpaByFilmId(f.getId());
-            if (mpa.isEmpty()) {
-                throw new NotFoundException(String.format("Оценка Ассоциации кинокомпаний для фильма с идентификатором %d не найдена", f.getId()));
-            }
+    /**
+     * Получить страницу фильмов с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего фильма предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница фильмов.
+     */
+    @Transactional(readOnly = true)
+    public Page<Film> getPage(long afterId, int limit) {
+        Page<Film> page = this.filmStorage.getPage(afterId, limit);
+        this.hydrate(page.getItems());
+
+        return page;
+    }
+
+    /**
+     * Последовательно передать все фильмы в {@code consumer}.
+     * Фильмы читаются из хранилища потоком и дополняются справочными данными порциями по {@value #STREAM_CHUNK_SIZE}.
+     * Чтение и дополнение выполняются в одной транзакции, поэтому выгрузка занимает одно соединение с БД.
+     *
+     * @param consumer получатель.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Film> consumer) {
+        List<Film> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
 
-            f.setMpa(mpa.get());
-            f.setGenres(this.genreStorage.getGenresByFilmId(f.getId()));
+        this.filmStorage.streamAll(film -> {
+            chunk.add(film);
+            if (chunk.size() == STREAM_CHUNK_SIZE) {
+                this.hydrate(chunk).forEach(consumer);
+                chunk.clear();
+            }
         });
 
-        return films;
+        this.hydrate(chunk).forEach(consumer);
     }
 
     /**
@@ -105,6 +172,7 @@ public class FilmService {
      * @param filmId идентификатор фильма.
      * @return фильм.
      */
+    @Transactional(readOnly = true)
     public Film getFilmById(long filmId) {
         Optional<Film> optionalFilm = this.filmStorage.getFilmById(filmId);
         if (optionalFilm.isEmpty()) {
@@ -112,16 +180,29 @@ public class FilmService {
         }
 
         Film film = optionalFilm.get();
+        this.hydrate(List.of(film));
 
-        Optional<MotionPictureAssociation> mpa = this.mpaStorage.getMpaByFilmId(filmId);
-        if (mpa.isEmpty()) {
-            throw new NotFoundException(String.format("Оценка Ассоциации кинокомпаний для фильма с идентификатором %d не найдена", filmId));
-        }
+        return film;
+    }
 
-        film.setMpa(mpa.get());
-        film.setGenres(this.genreStorage.getGenresByFilmId(filmId));
+    /**
+     * Получить версию фильма, не загружая сам фильм.
+     *
+     * @param filmId идентификатор фильма.
+     * @return версия фильма.
+     */
+    public long getFilmVersion(long filmId) {
+        return this.filmStorage.getFilmVersion(filmId)
+                .orElseThrow(() -> new NotFoundException(String.format("Фильм с идентификатором %d не найден", filmId)));
+    }
 
-        return film;
+    /**
+     * Получить версию коллекции всех фильмов.
+     *
+     * @return версия коллекции фильмов.
+     */
+    public CollectionVersion getFilmsVersion() {
+        return this.filmStorage.getFilmsVersion();
     }
 
     /**
@@ -130,6 +211,7 @@ public class FilmService {
      * @param film фильм.
      * @return обновленный фильм.
      */
+    @Transactional
     public Film update(Film film) {
         Optional<MotionPictureAssociation> mpa = this.mpaStorage.getMpaById(film.getMpa().getId());
         if (mpa.isEmpty()) {
@@ -147,37 +229,48 @@ public class FilmService {
         }).toList();
         film.setGenres(genres);
 
-        return this.filmStorage.update(film);
+        Film updatedFilm = this.filmStorage.update(film);
+        this.filmJsonCache.invalidate(updatedFilm.getId());
+
+        return updatedFilm;
     }
 
     /**
      * Поставить фильму пользовательский лайк.
+     * При включённой отложенной записи лайк ставится в очередь и записывается в БД позже.
      *
      * @param filmId идентификатор фильма.
      * @param userId идентификатор пользователя.
      */
     public void addLike(Long filmId, Long userId) {
-        Optional<User> user = this.userStorage.findById(userId);
-        if (user.isEmpty()) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        this.filmJsonCache.invalidate(filmId);
+        if (this.likeWriteBehindQueue != null) {
+            this.checkLikeTargetsExist(filmId, userId);
+            this.likeWriteBehindQueue.like(filmId, userId);
+            return;
         }
 
         this.filmStorage.addLike(filmId, userId);
+        this.likeGraph.like(filmId, userId);
     }
 
     /**
      * Удалить у фильма пользовательский лайк.
+     * При включённой отложенной записи удаление ставится в очередь и выполняется в БД позже.
      *
      * @param filmId идентификатор фильма.
      * @param userId идентификатор пользователя.
      */
     public void removeLike(Long filmId, Long userId) {
-        Optional<User> user = this.userStorage.findById(userId);
-        if (user.isEmpty()) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        this.filmJsonCache.invalidate(filmId);
+        if (this.likeWriteBehindQueue != null) {
+            this.checkLikeTargetsExist(filmId, userId);
+            this.likeWriteBehindQueue.unlike(filmId, userId);
+            return;
         }
 
         this.filmStorage.removeLike(filmId, userId);
+        this.likeGraph.unlike(filmId, userId);
     }
 
     /**
@@ -186,19 +279,125 @@ public class FilmService {
      * @param count количество фильмов.
      * @return {@code count} популярных фильмов.
      */
+    @Transactional(readOnly = true)
     public Collection<Film> getPopularFilms(Long count) {
-        Collection<Film> films = this.filmStorage.getPopularFilms(count);
+        return this.hydrate(this.filmStorage.getPopularFilms(count));
+    }
+
+    /**
+     * Получить рекомендации фильмов для пользователя на основе лайков похожих на него пользователей.
+     *
+     * @param userId идентификатор пользователя.
+     * @param limit  максимальное количество рекомендаций.
+     * @return список рекомендуемых фильмов.
+     */
+    @Transactional(readOnly = true)
+    public Collection<Film> getRecommendations(Long userId, int limit) {
+        this.checkUserExists(userId);
+
+        return this.hydrate(this.getFilmsInOrder(this.recommendationIndex.recommend(userId, limit)));
+    }
+
+    /**
+     * Получить фильмы, которым чаще всего ставили лайк пользователи, оценившие указанный фильм.
+     *
+     * @param filmId идентификатор фильма.
+     * @param limit  максимальное количество фильмов.
+     * @return список похожих фильмов.
+     */
+    @Transactional(readOnly = true)
+    public Collection<Film> getSimilarFilms(long filmId, int limit) {
+        this.checkFilmExists(filmId);
+
+        return this.hydrate(this.getFilmsInOrder(this.similarityIndex.getSimilar(filmId, limit)));
+    }
+
+    // region Facilities
+
+    /**
+     * Проверить, что пользователь существует.
+     *
+     * @param userId идентификатор пользователя.
+     */
+    private void checkUserExists(Long userId) {
+        if (this.userStorage.findById(userId).isEmpty()) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        }
+    }
+
+    /**
+     * Проверить, что фильм существует.
+     *
+     * @param filmId идентификатор фильма.
+     */
+    private void checkFilmExists(long filmId) {
+        if (this.filmStorage.getFilmById(filmId).isEmpty()) {
+            throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", filmId));
+        }
+    }
+
+    /**
+     * Проверить перед постановкой операции с лайком в очередь, что фильм и пользователь существуют.
+     * Фильм, у которого есть лайки, и пользователь, поставивший лайк, известны графу лайков и в БД не проверяются:
+     * фильмы и пользователи не удаляются. Для фильма или пользователя без лайков выполняется запрос в БД, чтобы
+     * на неизвестный идентификатор сразу ответить 404, а не отбросить операцию при записи из очереди.
+     *
+     * @param filmId идентификатор фильма.
+     * @param userId идентификатор пользователя.
+     */
+    private void checkLikeTargetsExist(Long filmId, Long userId) {
+        if (this.likeGraph.getLikers(filmId).isEmpty()) {
+            this.getFilmVersion(filmId);
+        }
+        if (this.likeGraph.getLikes(userId).isEmpty()) {
+            this.checkUserExists(userId);
+        }
+    }
+
+    /**
+     * Получить фильмы по их идентификаторам в порядке следования идентификаторов.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return список фильмов.
+     */
+    private List<Film> getFilmsInOrder(List<Long> filmIds) {
+        Map<Long, Film> films = new HashMap<>();
+        this.filmStorage.getFilmsByIds(filmIds).forEach(f -> films.put(f.getId(), f));
+
+        return filmIds.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Заполнить оценки Ассоциации кинокомпаний и жанры для коллекции фильмов.
+     * Данные загружаются одним запросом на каждый справочник, независимо от количества фильмов.
+     *
+     * @param films коллекция фильмов.
+     * @return та же коллекция фильмов.
+     */
+    private Collection<Film> hydrate(Collection<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        Collection<Long> filmIds = films.stream().map(Film::getId).toList();
+        Map<Long, MotionPictureAssociation> mpaByFilmId = this.mpaStorage.getMpaByFilmIds(filmIds);
+        Map<Long, Collection<Genre>> genresByFilmId = this.genreStorage.getGenresByFilmIds(filmIds);
 
         films.forEach(f -> {
-            Optional<MotionPictureAssociation> mpa = this.mpaStorage.getMpaByFilmId(f.getId());
-            if (mpa.isEmpty()) {
+            MotionPictureAssociation mpa = mpaByFilmId.get(f.getId());
+            if (mpa == null) {
                 throw new NotFoundException(String.format("Оценка Ассоциации кинокомпаний для фильма с идентификатором %d не найдена", f.getId()));
             }
 
-            f.setMpa(mpa.get());
-            f.setGenres(this.genreStorage.getGenresByFilmId(f.getId()));
+            f.setMpa(mpa);
+            f.setGenres(genresByFilmId.getOrDefault(f.getId(), List.of()));
         });
 
         return films;
     }
+
+    // endregion
 }
@@ -0,0 +1,291 @@
+package ru.yandex.practicum.filmorate.service;
+
+// region imports
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// endregion
+
+/**
+ * Индекс похожих фильмов ("пользователи, которым понравился этот фильм, также оценили").
+ * Хранит для каждого фильма количество пользователей, поставивших лайк ему и каждому другому фильму, и список
+ * из не более чем {@value #TOP_K} фильмов с наибольшим количеством совместных лайков. Индекс строится по графу
+ * лайков {@link LikeGraph}, а при каждом лайке счётчики и списки затронутых фильмов обновляются на месте, поэтому
+ * запрос похожих фильмов только читает готовый список. Лайки пользователей, оценивших больше
+ * {@value #MAX_USER_LIKES} фильмов, в схожести не учитываются.
+ */
+@Component
+public class FilmSimilarityIndex implements LikeGraph.Listener {
+    /**
+     * Максимальное количество лайков пользователя, при котором его лайки учитываются в схожести фильмов.
+     * Лайки пользователя, оценившего почти всё, почти ничего не говорят о схожести и дают квадратичный рост индекса.
+     */
+    static final int MAX_USER_LIKES = 1_000;
+
+    /**
+     * Максимальное количество похожих фильмов, хранимых для одного фильма.
+     */
+    static final int TOP_K = 100;
+
+    /**
+     * Граф лайков.
+     */
+    private final LikeGraph likeGraph;
+
+    /**
+     * Похожие фильмы по идентификатору фильма.
+     */
+    private final ConcurrentMap<Long, SimilarFilms> similarFilms;
+
+    /**
+     * Конструктор.
+     *
+     * @param likeGraph граф лайков.
+     */
+    public FilmSimilarityIndex(LikeGraph likeGraph) {
+        this.likeGraph = likeGraph;
+        this.similarFilms = new ConcurrentHashMap<>();
+        likeGraph.addListener(this);
+    }
+
+    /**
+     * Построить индекс по всем лайкам графа.
+     * Счётчики каждого фильма вычисляются независимо, параллельно по фильмам.
+     */
+    @PostConstruct
+    @Override
+    public void load() {
+        this.similarFilms.clear();
+
+        this.likeGraph.getFilms().parallelStream().forEach(filmId -> {
+            Map<Long, Integer> filmCoLikes = new HashMap<>();
+
+            this.likeGraph.getLikers(filmId).forEach(userId -> {
+                Set<Long> userLikes = this.likeGraph.getLikes(userId);
+                if (userLikes.size() <= MAX_USER_LIKES) {
+                    userLikes.forEach(otherFilmId -> {
+                        if (!otherFilmId.equals(filmId)) {
+                            filmCoLikes.merge(otherFilmId, 1, Integer::sum);
+                        }
+                    });
+                }
+            });
+
+            SimilarFilms similar = new SimilarFilms();
+            filmCoLikes.forEach(similar::adjust);
+            this.similarFilms.put(filmId, similar);
+        });
+    }
+
+    /**
+     * Учесть лайк пользователя: увеличить количество совместных лайков фильма с остальными фильмами пользователя.
+     *
+     * @param filmId     идентификатор фильма.
+     * @param userId     идентификатор пользователя.
+     * @param filmLikers пользователи, поставившие лайк фильму.
+     * @param userLikes  фильмы, которым поставил лайк пользователь, включая {@code filmId}.
+     */
+    @Override
+    public void onLike(Long filmId, Long userId, Set<Long> filmLikers, Set<Long> userLikes) {
+        if (userLikes.size() <= MAX_USER_LIKES) {
+            this.link(filmId, userLikes, 1);
+        } else if (userLikes.size() == MAX_USER_LIKES + 1) {
+            this.linkAll(userLikes, filmId, -1);
+        }
+    }
+
+    /**
+     * Учесть удаление лайка пользователя: уменьшить количество совместных лайков фильма с остальными фильмами пользователя.
+     *
+     * @param filmId     идентификатор фильма.
+     * @param userId     идентификатор пользователя.
+     * @param filmLikers оставшиеся пользователи, поставившие лайк фильму.
+     * @param userLikes  оставшиеся фильмы, которым поставил лайк пользователь.
+     */
+    @Override
+    public void onUnlike(Long filmId, Long userId, Set<Long> filmLikers, Set<Long> userLikes) {
+        if (userLikes.size() < MAX_USER_LIKES) {
+            this.link(filmId, userLikes, -1);
+        } else if (userLikes.size() == MAX_USER_LIKES) {
+            this.linkAll(userLikes, null, 1);
+        }
+    }
+
+    /**
+     * Получить фильмы, которым чаще всего ставили лайк пользователи, оценившие указанный фильм.
+     *
+     * @param filmId идентификатор фильма.
+     * @param limit  максимальное количество фильмов; больше {@value #TOP_K} фильмов не возвращается.
+     * @return идентификаторы похожих фильмов по убыванию количества совместных лайков.
+     */
+    public List<Long> getSimilar(Long filmId, int limit) {
+        SimilarFilms similar = this.similarFilms.get(filmId);
+
+        return similar == null ? List.of() : similar.top(limit);
+    }
+
+    // region Facilities
+
+    /**
+     * Изменить количество совместных лайков фильма с другими фильмами пользователя.
+     *
+     * @param filmId    идентификатор фильма.
+     * @param userLikes остальные фильмы, которым поставил лайк пользователь.
+     * @param delta     изменение количества совместных лайков.
+     */
+    private void link(Long filmId, Set<Long> userLikes, int delta) {
+        userLikes.forEach(otherFilmId -> {
+            if (!otherFilmId.equals(filmId)) {
+                this.similarFilms.computeIfAbsent(filmId, id -> new SimilarFilms()).adjust(otherFilmId, delta);
+                this.similarFilms.computeIfAbsent(otherFilmId, id -> new SimilarFilms()).adjust(filmId, delta);
+            }
+        });
+    }
+
+    /**
+     * Изменить количество совместных лайков для всех пар фильмов пользователя.
+     * Используется, когда лайки пользователя начинают или перестают учитываться из-за {@link #MAX_USER_LIKES}.
+     *
+     * @param userLikes фильмы, которым поставил лайк пользователь.
+     * @param exclude   фильм, пары с которым не учитываются; может быть {@code null}.
+     * @param delta     изменение количества совместных лайков.
+     */
+    private void linkAll(Collection<Long> userLikes, Long exclude, int delta) {
+        userLikes.forEach(filmId -> {
+            if (!filmId.equals(exclude)) {
+                SimilarFilms similar = this.similarFilms.computeIfAbsent(filmId, id -> new SimilarFilms());
+                userLikes.forEach(otherFilmId -> {
+                    if (!otherFilmId.equals(filmId) && !otherFilmId.equals(exclude)) {
+                        similar.adjust(otherFilmId, delta);
+                    }
+                });
+            }
+        });
+    }
+
+    // endregion
+
+    /**
+     * Похожие фильмы одного фильма: количество совместных лайков с каждым фильмом и не более {@value #TOP_K}
+     * фильмов с наибольшим количеством (при равенстве - с меньшим идентификатором), упорядоченных по убыванию.
+     * Рост счётчика сравнивается только с последним фильмом списка; полный просмотр счётчиков нужен, лишь когда
+     * уменьшается счётчик фильма из заполненного списка и на его место может подняться фильм вне списка.
+     * Доступ защищён блокировкой.
+     */
+    private static class SimilarFilms {
+        /**
+         * Порядок списка.
+         */
+        private static final Comparator<Ranked> ORDER = Comparator.comparingInt(Ranked::count).reversed().thenComparingLong(Ranked::filmId);
+
+        /**
+         * Количество совместных лайков по идентификатору другого фильма.
+         */
+        private final Map<Long, Integer> counts = new HashMap<>();
+
+        /**
+         * Фильмы с наибольшим количеством совместных лайков.
+         */
+        private final NavigableSet<Ranked> top = new TreeSet<>(ORDER);
+
+        /**
+         * Блокировка, защищающая счётчики и список.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Изменить количество совместных лайков с другим фильмом и обновить список.
+         *
+         * @param otherFilmId идентификатор другого фильма.
+         * @param delta       изменение количества совместных лайков.
+         */
+        void adjust(Long otherFilmId, int delta) {
+            this.lock.lock();
+            try {
+                Integer count = this.counts.get(otherFilmId);
+                int newCount = (count == null ? 0 : count) + delta;
+                if (newCount > 0) {
+                    this.counts.put(otherFilmId, newCount);
+                } else {
+                    this.counts.remove(otherFilmId);
+                }
+
+                boolean listed = count != null && this.top.remove(new Ranked(otherFilmId, count));
+                if (listed && delta < 0 && this.counts.size() > this.top.size() + (newCount > 0 ? 1 : 0)) {
+                    this.refill();
+                } else if (newCount > 0) {
+                    this.offer(new Ranked(otherFilmId, newCount));
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Получить начало списка.
+         *
+         * @param limit максимальное количество фильмов.
+         * @return идентификаторы фильмов по убыванию количества совместных лайков.
+         */
+        List<Long> top(int limit) {
+            this.lock.lock();
+            try {
+                List<Long> top = new ArrayList<>(Math.min(limit, this.top.size()));
+                Iterator<Ranked> iterator = this.top.iterator();
+                while (iterator.hasNext() && top.size() < limit) {
+                    top.add(iterator.next().filmId());
+                }
+
+                return top;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Добавить фильм в список, если он входит в {@value #TOP_K} лучших, вытеснив последний.
+         *
+         * @param ranked фильм и количество совместных лайков.
+         */
+        private void offer(Ranked ranked) {
+            if (this.top.size() < TOP_K) {
+                this.top.add(ranked);
+            } else if (ORDER.compare(ranked, this.top.last()) < 0) {
+                this.top.pollLast();
+                this.top.add(ranked);
+            }
+        }
+
+        /**
+         * Перестроить список по всем счётчикам.
+         */
+        private void refill() {
+            this.top.clear();
+            this.counts.forEach((filmId, count) -> this.offer(new Ranked(filmId, count)));
+        }
+    }
+
+    /**
+     * Фильм в списке похожих фильмов.
+     *
+     * @param filmId идентификатор фильма.
+     * @param count  количество совместных лайков.
+     */
+    private record Ranked(long filmId, int count) {
+    }
+}
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.service;
+
+// region imports
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.UserStorage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// endregion
+
+/**
+ * Граф дружбы пользователей в оперативной памяти.
+ * Загружается из хранилища при запуске приложения и поддерживается в актуальном состоянии сервисом пользователей.
+ */
+@Component
+public class FriendshipGraph {
+    /**
+     * Максимальное количество рёбер, просматриваемых при поиске рекомендаций для одного пользователя.
+     */
+    static final int MAX_VISITED_EDGES = 100_000;
+
+    /**
+     * Хранилище пользователей.
+     */
+    private final UserStorage userStorage;
+
+    /**
+     * Список смежности: идентификатор пользователя - идентификаторы его друзей.
+     */
+    private final ConcurrentMap<Long, Set<Long>> friends;
+
+    /**
+     * Конструктор.
+     *
+     * @param userStorage хранилище пользователей.
+     */
+    public FriendshipGraph(@Qualifier(UserDbStorage.CLASS_NAME) UserStorage userStorage) {
+        this.userStorage = userStorage;
+        this.friends = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Загрузить граф дружбы из хранилища.
+     */
+    @PostConstruct
+    public void load() {
+        this.friends.clear();
+        this.userStorage.forEachFriendship(this::addFriendship);
+    }
+
+    /**
+     * Добавить связь дружбы.
+     * Множество друзей изменяется внутри атомарной операции над списком смежности, как и при удалении связи,
+     * поэтому друг не может быть добавлен в множество, которое одновременно удаляется из списка как пустое.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param friendId идентификатор друга.
+     */
+    public void addFriendship(Long userId, Long friendId) {
+        this.friends.compute(userId, (id, friendIds) -> {
+            Set<Long> userFriends = friendIds == null ? ConcurrentHashMap.newKeySet() : friendIds;
+            userFriends.add(friendId);
+            return userFriends;
+        });
+    }
+
+    /**
+     * Удалить связь дружбы.
+     *
+     * @param userId   идентификатор пользователя.
+     * @param friendId идентификатор друга.
+     */
+    public void removeFriendship(Long userId, Long friendId) {
+        this.friends.computeIfPresent(userId, (id, friendIds) -> {
+            friendIds.remove(friendId);
+            return friendIds.isEmpty() ? null : friendIds;
+        });
+    }
+
+    /**
+     * Получить рекомендации друзей: пользователей, не являющихся друзьями, упорядоченных по убыванию количества общих друзей.
+     * Обход ограничен двумя шагами по графу и {@value #MAX_VISITED_EDGES} просмотренными рёбрами.
+     *
+     * @param userId идентификатор пользователя.
+     * @param limit  максимальное количество рекомендаций.
+     * @return идентификаторы рекомендуемых пользователей.
+     */
+    public List<Long> suggestFriends(Long userId, int limit) {
+        Set<Long> userFriends = this.friends.getOrDefault(userId, Collections.emptySet());
+        Map<Long, Integer> mutualFriendsCount = new HashMap<>();
+
+        int visitedEdges = 0;
+        traversal:
+        for (Long friendId : userFriends) {
+            for (Long candidateId : this.friends.getOrDefault(friendId, Collections.emptySet())) {
+                if (++visitedEdges > MAX_VISITED_EDGES) {
+                    break traversal;
+                }
+
+                if (!candidateId.equals(userId) && !userFriends.contains(candidateId)) {
+                    mutualFriendsCount.merge(candidateId, 1, Integer::sum);
+                }
+            }
+        }
+
+        return mutualFriendsCount.entrySet()
+                .stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
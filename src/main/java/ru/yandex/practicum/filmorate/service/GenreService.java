@@ -5,7 +5,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.CachedGenreStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.GenreStorage;
 
 import java.util.Collection;
@@ -20,7 +20,7 @@ public final class GenreService {
      * Хранилище жанров.
      */
     @Autowired
-    @Qualifier(GenreDbStorage.CLASS_NAME)
+    @Qualifier(CachedGenreStorage.CLASS_NAME)
     private GenreStorage genreStorage;
 
 
@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.service;
+
+// region imports
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.abstractions.FilmStorage;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// endregion
+
+/**
+ * Граф лайков в оперативной памяти: фильмы, которым поставил лайк каждый пользователь, и пользователи,
+ * поставившие лайк каждому фильму. Общий для индексов рекомендаций и похожих фильмов: граф загружается
+ * из хранилища при запуске приложения, а каждое изменение лайка передаётся подписчикам.
+ * Подписчик вызывается, пока изменение фильма и пользователя заблокировано от одновременных изменений
+ * того же фильма и того же пользователя, поэтому производные счётчики подписчиков не расходятся с графом.
+ */
+@Component
+public class LikeGraph {
+    /**
+     * Хранилище фильмов.
+     */
+    private final FilmStorage filmStorage;
+
+    /**
+     * Фильмы, которым поставил лайк пользователь.
+     */
+    private final ConcurrentMap<Long, Set<Long>> likesByUser;
+
+    /**
+     * Пользователи, поставившие лайк фильму.
+     */
+    private final ConcurrentMap<Long, Set<Long>> likersByFilm;
+
+    /**
+     * Подписчики на изменения графа.
+     */
+    private final List<Listener> listeners;
+
+    /**
+     * Конструктор.
+     *
+     * @param filmStorage хранилище фильмов.
+     */
+    public LikeGraph(@Qualifier(FilmDbStorage.CLASS_NAME) FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+        this.likesByUser = new ConcurrentHashMap<>();
+        this.likersByFilm = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Загрузить граф лайков из хранилища и перестроить индексы подписчиков.
+     */
+    @PostConstruct
+    public void load() {
+        this.likesByUser.clear();
+        this.likersByFilm.clear();
+
+        this.filmStorage.forEachLike((filmId, userId) -> {
+            this.likesByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(filmId);
+            this.likersByFilm.computeIfAbsent(filmId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+        });
+
+        this.listeners.forEach(Listener::load);
+    }
+
+    /**
+     * Подписаться на изменения графа.
+     *
+     * @param listener подписчик.
+     */
+    public void addListener(Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Учесть лайк пользователя. Повторный вызов для того же лайка ничего не меняет.
+     *
+     * @param filmId идентификатор фильма.
+     * @param userId идентификатор пользователя.
+     */
+    public void like(Long filmId, Long userId) {
+        this.likersByFilm.compute(filmId, (fid, likers) -> {
+            Set<Long> filmLikers = likers == null ? ConcurrentHashMap.newKeySet() : likers;
+            if (!filmLikers.add(userId)) {
+                return filmLikers;
+            }
+
+            this.likesByUser.compute(userId, (uid, likes) -> {
+                Set<Long> userLikes = likes == null ? ConcurrentHashMap.newKeySet() : likes;
+                userLikes.add(filmId);
+                this.listeners.forEach(listener -> listener.onLike(filmId, userId, filmLikers, userLikes));
+
+                return userLikes;
+            });
+
+            return filmLikers;
+        });
+    }
+
+    /**
+     * Учесть удаление лайка пользователя. Повторный вызов для того же лайка ничего не меняет.
+     *
+     * @param filmId идентификатор фильма.
+     * @param userId идентификатор пользователя.
+     */
+    public void unlike(Long filmId, Long userId) {
+        this.likersByFilm.computeIfPresent(filmId, (fid, filmLikers) -> {
+            if (!filmLikers.remove(userId)) {
+                return filmLikers;
+            }
+
+            this.likesByUser.compute(userId, (uid, likes) -> {
+                Set<Long> userLikes = likes == null ? ConcurrentHashMap.newKeySet() : likes;
+                userLikes.remove(filmId);
+                this.listeners.forEach(listener -> listener.onUnlike(filmId, userId, filmLikers, userLikes));
+
+                return userLikes.isEmpty() ? null : userLikes;
+            });
+
+            return filmLikers.isEmpty() ? null : filmLikers;
+        });
+    }
+
+    /**
+     * Получить фильмы, которым поставил лайк пользователь.
+     *
+     * @param userId идентификатор пользователя.
+     * @return идентификаторы фильмов.
+     */
+    public Set<Long> getLikes(Long userId) {
+        return this.likesByUser.getOrDefault(userId, Collections.emptySet());
+    }
+
+    /**
+     * Получить пользователей, поставивших лайк фильму.
+     *
+     * @param filmId идентификатор фильма.
+     * @return идентификаторы пользователей.
+     */
+    public Set<Long> getLikers(Long filmId) {
+        return this.likersByFilm.getOrDefault(filmId, Collections.emptySet());
+    }
+
+    /**
+     * Получить пользователей, поставивших хотя бы один лайк.
+     *
+     * @return идентификаторы пользователей.
+     */
+    public Set<Long> getUsers() {
+        return this.likesByUser.keySet();
+    }
+
+    /**
+     * Получить фильмы, которым поставлен хотя бы один лайк.
+     *
+     * @return идентификаторы фильмов.
+     */
+    public Set<Long> getFilms() {
+        return this.likersByFilm.keySet();
+    }
+
+    /**
+     * Подписчик на изменения графа лайков.
+     */
+    public interface Listener {
+        /**
+         * Перестроить индекс по текущему состоянию графа.
+         */
+        void load();
+
+        /**
+         * Учесть лайк пользователя.
+         *
+         * @param filmId     идентификатор фильма.
+         * @param userId     идентификатор пользователя.
+         * @param filmLikers пользователи, поставившие лайк фильму, включая {@code userId}.
+         * @param userLikes  фильмы, которым поставил лайк пользователь, включая {@code filmId}.
+         */
+        void onLike(Long filmId, Long userId, Set<Long> filmLikers, Set<Long> userLikes);
+
+        /**
+         * Учесть удаление лайка пользователя.
+         *
+         * @param filmId     идентификатор фильма.
+         * @param userId     идентификатор пользователя.
+         * @param filmLikers оставшиеся пользователи, поставившие лайк фильму.
+         * @param userLikes  оставшиеся фильмы, которым поставил лайк пользователь.
+         */
+        void onUnlike(Long filmId, Long userId, Set<Long> filmLikers, Set<Long> userLikes);
+    }
+}
@@ -0,0 +1,359 @@
+package ru.yandex.practicum.filmorate.service;
+
+// region imports
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// endregion
+
+/**
+ * Очередь отложенной записи лайков (write-behind).
+ * Лайки и их удаления принимаются в ограниченную очередь, повторные операции с одной парой фильм-пользователь
+ * схлопываются до последней, а накопленные операции записываются в БД пакетами в транзакциях - по таймеру
+ * или при достижении размера пакета. Если очередь заполнена, поток запроса ждёт освобождения места, а по
+ * истечении ожидания получает отказ. Операция занимает место в очереди, пока не будет записана: операции,
+ * которые не удалось записать, возвращаются в очередь и повторяются при следующей записи. При остановке
+ * приложения все принятые операции записываются.
+ * Включается свойством {@code filmorate.likes.write-behind.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class LikeWriteBehindQueue {
+    /**
+     * Хранилище фильмов в БД.
+     */
+    private final FilmDbStorage filmStorage;
+
+    /**
+     * Шаблон для выполнения пакетов в транзакции.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Граф лайков, общий для индексов рекомендаций и похожих фильмов.
+     */
+    private final LikeGraph likeGraph;
+
+    /**
+     * Ожидающие записи операции: лайк - {@code true} для постановки, {@code false} для удаления.
+     */
+    private final ConcurrentMap<Like, Boolean> pending;
+
+    /**
+     * Свободные места в очереди.
+     */
+    private final Semaphore capacity;
+
+    /**
+     * Размер пакета записи.
+     */
+    private final int batchSize;
+
+    /**
+     * Время ожидания свободного места в очереди, мс.
+     */
+    private final long offerTimeoutMs;
+
+    /**
+     * Поток записи пакетов.
+     */
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Признак того, что запись по размеру пакета уже запланирована.
+     */
+    private final AtomicBoolean flushRequested;
+
+    /**
+     * Блокировка, исключающая одновременную запись пакетов.
+     */
+    private final ReentrantLock flushLock;
+
+    /**
+     * Блокировка приёма операций: постановка в очередь выполняется под блокировкой чтения,
+     * а остановка очереди - под блокировкой записи, поэтому после остановки в очередь ничего не попадает.
+     */
+    private final ReadWriteLock offerLock;
+
+    /**
+     * Признак остановки очереди.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Конструктор.
+     *
+     * @param filmStorage         хранилище фильмов в БД.
+     * @param transactionTemplate шаблон для выполнения пакетов в транзакции.
+     * @param likeGraph           граф лайков.
+     * @param capacity            максимальное количество ожидающих записи операций.
+     * @param batchSize           размер пакета записи.
+     * @param flushIntervalMs     интервал записи по таймеру, мс.
+     * @param offerTimeoutMs      время ожидания свободного места в очереди, мс.
+     * @param virtualThreads      признак выполнения записи в виртуальном потоке.
+     */
+    public LikeWriteBehindQueue(FilmDbStorage filmStorage,
+                                TransactionTemplate transactionTemplate,
+                                LikeGraph likeGraph,
+                                @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                                @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                                @Value("${filmorate.likes.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.filmStorage = filmStorage;
+        this.transactionTemplate = transactionTemplate;
+        this.likeGraph = likeGraph;
+        this.pending = new ConcurrentHashMap<>();
+        this.capacity = new Semaphore(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.flushRequested = new AtomicBoolean();
+        this.flushLock = new ReentrantLock();
+        this.offerLock = new ReentrantReadWriteLock();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(virtualThreads
+                ? Thread.ofVirtual().name("likes-write-behind").factory()
+                : Thread.ofPlatform().name("likes-write-behind").daemon().factory());
+        this.flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Поставить в очередь лайк.
+     *
+     * @param filmId идентификатор фильма.
+     * @param userId идентификатор пользователя.
+     */
+    public void like(Long filmId, Long userId) {
+        this.offer(filmId, userId, true);
+    }
+
+    /**
+     * Поставить в очередь удаление лайка.
+     *
+     * @param filmId идентификатор фильма.
+     * @param userId идентификатор пользователя.
+     */
+    public void unlike(Long filmId, Long userId) {
+        this.offer(filmId, userId, false);
+    }
+
+    /**
+     * Остановить приём операций и запись по таймеру и записать все принятые операции.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        this.offerLock.writeLock().lock();
+        try {
+            this.closed = true;
+        } finally {
+            this.offerLock.writeLock().unlock();
+        }
+
+        this.flusher.shutdown();
+        if (!this.flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Запись лайков по таймеру не завершилась за отведённое время");
+        }
+
+        this.flush();
+        if (!this.pending.isEmpty()) {
+            log.error("При остановке не удалось записать {} операций с лайками", this.pending.size());
+        }
+    }
+
+    // region Facilities
+
+    /**
+     * Поставить операцию в очередь. Операция с парой, уже ожидающей записи, заменяет предыдущую и не занимает места.
+     *
+     * @param filmId идентификатор фильма.
+     * @param userId идентификатор пользователя.
+     * @param liked  {@code true} для постановки лайка, {@code false} для удаления.
+     */
+    private void offer(Long filmId, Long userId, boolean liked) {
+        if (this.closed) {
+            throw new ServiceUnavailableException("Приём лайков остановлен");
+        }
+
+        try {
+            if (!this.capacity.tryAcquire(this.offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ServiceUnavailableException("Очередь записи лайков переполнена");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Постановка лайка в очередь прервана");
+        }
+
+        Like like = new Like();
+        like.setFilmId(filmId);
+        like.setUserId(userId);
+
+        this.offerLock.readLock().lock();
+        try {
+            if (this.closed) {
+                this.capacity.release();
+                throw new ServiceUnavailableException("Приём лайков остановлен");
+            }
+
+            if (this.pending.put(like, liked) != null) {
+                this.capacity.release();
+            }
+        } finally {
+            this.offerLock.readLock().unlock();
+        }
+
+        if (this.pending.size() >= this.batchSize && this.flushRequested.compareAndSet(false, true)) {
+            try {
+                this.flusher.execute(() -> {
+                    this.flushRequested.set(false);
+                    this.flushSafely();
+                });
+            } catch (RejectedExecutionException ex) {
+                // Очередь останавливается: принятая операция будет записана при остановке
+                this.flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Записать ожидающие операции, не пробрасывая ошибки в поток записи.
+     */
+    private void flushSafely() {
+        try {
+            this.flush();
+        } catch (RuntimeException ex) {
+            log.error("Не удалось записать лайки", ex);
+        }
+    }
+
+    /**
+     * Записать ожидающие операции пакетами по {@code batchSize}.
+     * За один вызов записываются только операции, принятые до его начала, поэтому операции, возвращённые
+     * в очередь после неудачной записи, повторяются при следующем вызове, а не в цикле.
+     */
+    private void flush() {
+        this.flushLock.lock();
+        try {
+            int remaining = this.pending.size();
+            while (remaining > 0 && !this.pending.isEmpty()) {
+                List<Like> likes = new ArrayList<>();
+                List<Like> unlikes = new ArrayList<>();
+
+                Iterator<Map.Entry<Like, Boolean>> iterator = this.pending.entrySet().iterator();
+                while (iterator.hasNext() && likes.size() + unlikes.size() < Math.min(this.batchSize, remaining)) {
+                    Like like = iterator.next().getKey();
+                    Boolean liked = this.pending.remove(like);
+                    if (liked != null) {
+                        (liked ? likes : unlikes).add(like);
+                    }
+                }
+
+                remaining -= likes.size() + unlikes.size();
+                this.write(likes, unlikes);
+            }
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записать пакет в одной транзакции. Если пакет не удалось записать, операции записываются по одной.
+     *
+     * @param likes   лайки.
+     * @param unlikes удаления лайков.
+     */
+    private void write(List<Like> likes, List<Like> unlikes) {
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> {
+                this.filmStorage.removeLikes(unlikes);
+                this.filmStorage.addLikes(likes);
+            });
+            likes.forEach(like -> this.written(like, true));
+            unlikes.forEach(like -> this.written(like, false));
+        } catch (DataAccessException ex) {
+            log.warn("Не удалось записать пакет из {} лайков, запись по одному", likes.size() + unlikes.size(), ex);
+            likes.forEach(like -> this.writeOne(like, true));
+            unlikes.forEach(like -> this.writeOne(like, false));
+        }
+    }
+
+    /**
+     * Записать одну операцию. Операция, которую не удалось записать, возвращается в очередь, если за время записи
+     * для той же пары фильм-пользователь не поступила более новая операция. Операция, нарушающая целостность
+     * данных (фильм или пользователь не существует), не может быть записана и пропускается с записью в журнал.
+     *
+     * @param like  лайк.
+     * @param liked {@code true} для постановки лайка, {@code false} для удаления.
+     */
+    private void writeOne(Like like, boolean liked) {
+        try {
+            if (liked) {
+                this.filmStorage.addLikes(List.of(like));
+            } else {
+                this.filmStorage.removeLikes(List.of(like));
+            }
+            this.written(like, liked);
+        } catch (DataIntegrityViolationException ex) {
+            log.error("Лайк {} (постановка: {}) нарушает целостность данных и не будет записан", like, liked, ex);
+            this.capacity.release();
+        } catch (DataAccessException ex) {
+            log.warn("Не удалось записать лайк {} (постановка: {}), запись будет повторена", like, liked, ex);
+            if (this.pending.putIfAbsent(like, liked) != null) {
+                this.capacity.release();
+            }
+        }
+    }
+
+    /**
+     * Освободить место в очереди и обновить индексы после записи операции.
+     *
+     * @param like  лайк.
+     * @param liked {@code true} для постановки лайка, {@code false} для удаления.
+     */
+    private void written(Like like, boolean liked) {
+        this.capacity.release();
+        this.index(like, liked);
+    }
+
+    /**
+     * Обновить индексы после записи операции.
+     *
+     * @param like  лайк.
+     * @param liked {@code true} для постановки лайка, {@code false} для удаления.
+     */
+    private void index(Like like, boolean liked) {
+        if (liked) {
+            this.likeGraph.like(like.getFilmId(), like.getUserId());
+        } else {
+            this.likeGraph.unlike(like.getFilmId(), like.getUserId());
+        }
+    }
+
+    // endregion
+}
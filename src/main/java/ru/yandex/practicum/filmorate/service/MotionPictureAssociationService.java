@@ -5,7 +5,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
-import ru.yandex.practicum.filmorate.storage.MotionPictureAssociationDbStorage;
+import ru.yandex.practicum.filmorate.storage.CachedMotionPictureAssociationStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.MotionPictureAssociationStorage;
 
 import java.util.Collection;
@@ -20,7 +20,7 @@ public final class MotionPictureAssociationService {
      * Хранилище оценок Ассоциации кинокомпаний.
      */
     @Autowired
-    @Qualifier(MotionPictureAssociationDbStorage.CLASS_NAME)
+    @Qualifier(CachedMotionPictureAssociationStorage.CLASS_NAME)
     private MotionPictureAssociationStorage mpaStorage;
 
     /**
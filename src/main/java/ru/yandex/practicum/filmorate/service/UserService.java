@@ -3,15 +3,26 @@ package ru.yandex.practicum.filmorate.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserDbStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.UserStorage;
+import ru.yandex.practicum.filmorate.util.jfr.FlightRecorded;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для работы с пользователями.
  */
+@FlightRecorded
 @Service
 public class UserService {
     /**
@@ -21,6 +32,12 @@ public class UserService {
     @Qualifier(UserDbStorage.CLASS_NAME)
     private UserStorage userStorage;
 
+    /**
+     * Граф дружбы пользователей.
+     */
+    @Autowired
+    private FriendshipGraph friendshipGraph;
+
     /**
      * Создать пользователя.
      *
@@ -44,6 +61,26 @@ public class UserService {
         return this.userStorage.getAll();
     }
 
+    /**
+     * Получить страницу пользователей с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего пользователя предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница пользователей.
+     */
+    public Page<User> getPage(long afterId, int limit) {
+        return this.userStorage.getPage(afterId, limit);
+    }
+
+    /**
+     * Последовательно передать всех пользователей в {@code consumer}.
+     *
+     * @param consumer получатель.
+     */
+    public void streamAll(Consumer<User> consumer) {
+        this.userStorage.streamAll(consumer);
+    }
+
     /**
      * Обновить пользователя.
      *
@@ -62,6 +99,7 @@ public class UserService {
      */
     public void addFriend(Long userId, Long friendId) {
         this.userStorage.addFriend(userId, friendId);
+        this.friendshipGraph.addFriendship(userId, friendId);
     }
 
     /**
@@ -74,6 +112,29 @@ public class UserService {
         return this.userStorage.getFriends(userId);
     }
 
+    /**
+     * Получить страницу друзей пользователя с идентификатором больше {@code afterId}.
+     *
+     * @param userId  идентификатор пользователя.
+     * @param afterId идентификатор последнего друга предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница друзей пользователя.
+     */
+    public Page<User> getFriendsPage(Long userId, long afterId, int limit) {
+        return this.userStorage.getFriendsPage(userId, afterId, limit);
+    }
+
+    /**
+     * Получить версию списка друзей пользователя, не загружая самих друзей.
+     *
+     * @param userId идентификатор пользователя.
+     * @return версия списка друзей.
+     */
+    public CollectionVersion getFriendsVersion(Long userId) {
+        return this.userStorage.getFriendsVersion(userId)
+                .orElseThrow(() -> new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId)));
+    }
+
     /**
      * Получить общих друзей двух пользователей.
      *
@@ -93,5 +154,29 @@ public class UserService {
      */
     public void removeFriend(Long userId, Long friendId) {
         this.userStorage.removeFriend(userId, friendId);
+        this.friendshipGraph.removeFriendship(userId, friendId);
+    }
+
+    /**
+     * Получить рекомендации друзей, упорядоченные по убыванию количества общих друзей.
+     *
+     * @param userId идентификатор пользователя.
+     * @param limit  максимальное количество рекомендаций.
+     * @return список рекомендуемых пользователей.
+     */
+    public Collection<User> getFriendSuggestions(Long userId, int limit) {
+        if (this.userStorage.findById(userId).isEmpty()) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        }
+
+        List<Long> suggestedIds = this.friendshipGraph.suggestFriends(userId, limit);
+        Map<Long, User> users = this.userStorage.findByIds(suggestedIds)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return suggestedIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
@@ -1,20 +1,39 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class BaseDbStorage<T> {
+    /**
+     * Количество строк, запрашиваемых у БД за один раз при потоковом чтении.
+     */
+    protected static final int STREAM_FETCH_SIZE = 500;
+
     protected final JdbcTemplate jdbcTemplate;
     protected final RowMapper<T> rowMapper;
 
+    /**
+     * Метрики запросов хранилища.
+     */
+    private final QueryMetrics queryMetrics;
+
     /**
      * Конструктор.
      *
@@ -24,18 +43,19 @@ public class BaseDbStorage<T> {
     public BaseDbStorage(JdbcTemplate jdbcTemplate, RowMapper<T> rowMapper) {
         this.jdbcTemplate = jdbcTemplate;
         this.rowMapper = rowMapper;
+        this.queryMetrics = new QueryMetrics(this.getClass());
     }
 
     protected long insert(String query, Object... params) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
 
-        this.jdbcTemplate.update(connection -> {
+        this.queryMetrics.recordUpdate(query, () -> this.jdbcTemplate.update(connection -> {
             PreparedStatement preparedStatement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
             for (int i = 0; i < params.length; i++) {
                 preparedStatement.setObject(i + 1, params[i]);
             }
             return preparedStatement;
-        }, keyHolder);
+        }, keyHolder), rowsInserted -> rowsInserted);
 
         Long id = keyHolder.getKeyAs(Long.class);
         if (id != null) {
@@ -45,31 +65,162 @@ public class BaseDbStorage<T> {
         }
     }
 
+    protected List<Long> batchInsert(String query, List<Object[]> batchArgs) {
+        if (batchArgs.isEmpty()) {
+            return List.of();
+        }
+
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+
+        this.queryMetrics.recordUpdate(query, () -> this.jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
+                Object[] params = batchArgs.get(i);
+                for (int j = 0; j < params.length; j++) {
+                    preparedStatement.setObject(j + 1, params[j]);
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batchArgs.size();
+            }
+        }, keyHolder), BaseDbStorage::sum);
+
+        List<Long> ids = keyHolder.getKeyList().stream().map(keys -> ((Number) keys.values().iterator().next()).longValue()).toList();
+        if (ids.size() != batchArgs.size()) {
+            throw new InternalServerException("Не удалось сохранить данные");
+        }
+
+        return ids;
+    }
+
     protected Optional<T> findOne(String query, Object... params) {
         try {
-            T result = this.jdbcTemplate.queryForObject(query, this.rowMapper, params);
+            T result = this.queryMetrics.recordQuery(query, () -> this.jdbcTemplate.queryForObject(query, this.rowMapper, params), row -> 1);
             return Optional.ofNullable(result);
         } catch (EmptyResultDataAccessException ignored) {
             return Optional.empty();
         }
     }
 
+    /**
+     * Получить одно значение, построенное из строки результата запроса {@code mapper}.
+     *
+     * @param query  SQL-запрос.
+     * @param mapper конвертер строки результата.
+     * @param params параметры запроса.
+     * @param <R>    тип значения.
+     * @return значение или пустое значение, если запрос не вернул строк.
+     */
+    protected <R> Optional<R> findValue(String query, RowMapper<R> mapper, Object... params) {
+        List<R> result = this.queryMetrics.recordQuery(query, () -> this.jdbcTemplate.query(query, mapper, params), List::size);
+        return result.stream().findFirst();
+    }
+
     protected List<T> findMany(String query, Object... params) {
-        return this.jdbcTemplate.query(query, this.rowMapper, params);
+        return this.queryMetrics.recordQuery(query, () -> this.jdbcTemplate.query(query, this.rowMapper, params), List::size);
+    }
+
+    protected boolean exists(String query, Object... params) {
+        Long count = this.queryMetrics.recordQuery(query, () -> this.jdbcTemplate.queryForObject(query, Long.class, params), row -> 1);
+        return count != null && count > 0;
+    }
+
+    protected List<Long> findIds(String query, Object... params) {
+        return this.findColumn(query, Long.class, params);
+    }
+
+    protected <E> List<E> findColumn(String query, Class<E> type, Object... params) {
+        return this.queryMetrics.recordQuery(query, () -> this.jdbcTemplate.queryForList(query, type, params), List::size);
+    }
+
+    protected Map<Long, Collection<T>> findManyGroupedBy(String keyColumn, String query, Object... params) {
+        Map<Long, Collection<T>> result = new HashMap<>();
+
+        this.forEachRow(query, 0, resultSet -> result
+                .computeIfAbsent(resultSet.getLong(keyColumn), key -> new ArrayList<>())
+                .add(this.rowMapper.mapRow(resultSet, resultSet.getRow())), params);
+
+        return result;
+    }
+
+    protected void stream(String query, int fetchSize, Consumer<T> consumer, Object... params) {
+        this.forEachRow(query, fetchSize, resultSet -> consumer.accept(this.rowMapper.mapRow(resultSet, resultSet.getRow())), params);
+    }
+
+    /**
+     * Передать каждую строку результата запроса в {@code handler}, не загружая результат в память целиком.
+     *
+     * @param query     SQL-запрос.
+     * @param fetchSize количество строк, запрашиваемых у БД за один раз; {@code 0} - по умолчанию драйвера.
+     * @param handler   обработчик строки.
+     * @param params    параметры запроса.
+     */
+    protected void forEachRow(String query, int fetchSize, RowCallbackHandler handler, Object... params) {
+        this.queryMetrics.recordQuery(query, () -> {
+            long[] rows = new long[1];
+            this.jdbcTemplate.query(connection -> {
+                PreparedStatement preparedStatement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                preparedStatement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.length; i++) {
+                    preparedStatement.setObject(i + 1, params[i]);
+                }
+                return preparedStatement;
+            }, (RowCallbackHandler) resultSet -> {
+                rows[0]++;
+                handler.processRow(resultSet);
+            });
+            return rows[0];
+        }, rows -> rows);
     }
 
     protected void update(String query, Object... params) {
-        int rowsUpdated = this.jdbcTemplate.update(query, params);
+        int rowsUpdated = this.execute(query, params);
         if (rowsUpdated == 0) {
             throw new InternalServerException("Не удалось обновить данные");
         }
     }
 
-    protected void delete(String query, long id) {
-        this.jdbcTemplate.update(query, id);
+    protected void batchUpdate(String query, List<Object[]> batchArgs) {
+        if (!batchArgs.isEmpty()) {
+            this.queryMetrics.recordUpdate(query, () -> this.jdbcTemplate.batchUpdate(query, batchArgs), BaseDbStorage::sum);
+        }
+    }
+
+    protected int delete(String query, long id) {
+        return this.execute(query, id);
+    }
+
+    protected int delete(String query, Object... params) {
+        return this.execute(query, params);
+    }
+
+    /**
+     * Выполнить запрос на изменение данных.
+     *
+     * @param query  SQL-запрос.
+     * @param params параметры запроса.
+     * @return количество изменённых строк.
+     */
+    protected int execute(String query, Object... params) {
+        return this.queryMetrics.recordUpdate(query, () -> this.jdbcTemplate.update(query, params), rows -> rows);
     }
 
-    protected void delete(String query, Object... params) {
-        this.jdbcTemplate.update(query, params);
+    /**
+     * Посчитать количество строк, изменённых пакетом запросов.
+     * Драйвер может вернуть {@link Statement#SUCCESS_NO_INFO} вместо количества строк, такие запросы не учитываются.
+     *
+     * @param rowsAffected количество строк, изменённых каждым запросом пакета.
+     * @return количество изменённых строк.
+     */
+    private static long sum(int[] rowsAffected) {
+        long sum = 0;
+        for (int rows : rowsAffected) {
+            if (rows > 0) {
+                sum += rows;
+            }
+        }
+        return sum;
     }
 }
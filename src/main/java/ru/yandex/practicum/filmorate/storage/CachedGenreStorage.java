@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.abstractions.GenreStorage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+// endregion
+
+/**
+ * Хранилище жанров с кэшированием справочника в оперативной памяти.
+ * Справочник загружается целиком при запуске приложения и перечитывается из БД только после явной инвалидации
+ * (см. {@link ReferenceDataEndpoint}).
+ */
+@Component(CachedGenreStorage.CLASS_NAME)
+public class CachedGenreStorage implements GenreStorage {
+    /**
+     * Название текущего класса.
+     */
+    public static final String CLASS_NAME = "CachedGenreStorage";
+
+    /**
+     * Хранилище жанров в БД.
+     */
+    private final GenreStorage genreStorage;
+
+    /**
+     * Кэш справочника.
+     */
+    private final ReferenceDataCache<Genre> cache;
+
+    /**
+     * Конструктор.
+     *
+     * @param genreStorage хранилище жанров в БД.
+     */
+    public CachedGenreStorage(@Qualifier(GenreDbStorage.CLASS_NAME) GenreStorage genreStorage) {
+        this.genreStorage = genreStorage;
+        this.cache = new ReferenceDataCache<>(CLASS_NAME, genreStorage::getAll, Genre::getId);
+    }
+
+    /**
+     * Загрузить справочник жанров.
+     */
+    @PostConstruct
+    public void load() {
+        this.cache.load();
+    }
+
+    /**
+     * Инвалидировать кэш. Справочник будет перечитан из БД при следующем обращении.
+     */
+    public void invalidate() {
+        this.cache.invalidate();
+    }
+
+    /**
+     * Получить список всех жанров.
+     *
+     * @return список всех жанров.
+     */
+    @Override
+    public Collection<Genre> getAll() {
+        return this.cache.get().values();
+    }
+
+    /**
+     * Получить жанр по его идентификатор.
+     *
+     * @param genreId идентификатор жанра.
+     * @return жанр.
+     */
+    @Override
+    public Optional<Genre> getGenreById(long genreId) {
+        return Optional.ofNullable(this.cache.get().get(genreId));
+    }
+
+    /**
+     * Получить список жанров по идентификатору фильма.
+     *
+     * @param filmId идентификатор фильма.
+     * @return список жанров.
+     */
+    @Override
+    public Collection<Genre> getGenresByFilmId(long filmId) {
+        return this.genreStorage.getGenresByFilmId(filmId);
+    }
+
+    /**
+     * Получить жанры сразу для нескольких фильмов.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return жанры, сгруппированные по идентификатору фильма.
+     */
+    @Override
+    public Map<Long, Collection<Genre>> getGenresByFilmIds(Collection<Long> filmIds) {
+        return this.genreStorage.getGenresByFilmIds(filmIds);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
+import ru.yandex.practicum.filmorate.storage.abstractions.MotionPictureAssociationStorage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+// endregion
+
+/**
+ * Хранилище оценок Ассоциации кинокомпаний с кэшированием справочника в оперативной памяти.
+ * Справочник загружается целиком при запуске приложения и перечитывается из БД только после явной инвалидации
+ * (см. {@link ReferenceDataEndpoint}).
+ */
+@Component(CachedMotionPictureAssociationStorage.CLASS_NAME)
+public class CachedMotionPictureAssociationStorage implements MotionPictureAssociationStorage {
+    /**
+     * Название текущего класса.
+     */
+    public static final String CLASS_NAME = "CachedMotionPictureAssociationStorage";
+
+    /**
+     * Хранилище оценок Ассоциации кинокомпаний в БД.
+     */
+    private final MotionPictureAssociationStorage mpaStorage;
+
+    /**
+     * Кэш справочника.
+     */
+    private final ReferenceDataCache<MotionPictureAssociation> cache;
+
+    /**
+     * Конструктор.
+     *
+     * @param mpaStorage хранилище оценок Ассоциации кинокомпаний в БД.
+     */
+    public CachedMotionPictureAssociationStorage(@Qualifier(MotionPictureAssociationDbStorage.CLASS_NAME) MotionPictureAssociationStorage mpaStorage) {
+        this.mpaStorage = mpaStorage;
+        this.cache = new ReferenceDataCache<>(CLASS_NAME, mpaStorage::getAll, MotionPictureAssociation::getId);
+    }
+
+    /**
+     * Загрузить справочник оценок Ассоциации кинокомпаний.
+     */
+    @PostConstruct
+    public void load() {
+        this.cache.load();
+    }
+
+    /**
+     * Инвалидировать кэш. Справочник будет перечитан из БД при следующем обращении.
+     */
+    public void invalidate() {
+        this.cache.invalidate();
+    }
+
+    /**
+     * Получить список всех оценок Ассоциации кинокомпаний.
+     *
+     * @return список всех оценок Ассоциации кинокомпаний.
+     */
+    @Override
+    public Collection<MotionPictureAssociation> getAll() {
+        return this.cache.get().values();
+    }
+
+    /**
+     * Получить оценку Ассоциации кинокомпаний по её идентификатору.
+     *
+     * @param mpaId идентификатор оценки Ассоциации кинокомпаний.
+     * @return оценка Ассоциации кинокомпаний.
+     */
+    @Override
+    public Optional<MotionPictureAssociation> getMpaById(long mpaId) {
+        return Optional.ofNullable(this.cache.get().get(mpaId));
+    }
+
+    /**
+     * Получить оценку Ассоциации кинокомпаний по идентификатору фильма.
+     *
+     * @param filmId идентификатор фильма.
+     * @return оценка Ассоциации кинокомпаний.
+     */
+    @Override
+    public Optional<MotionPictureAssociation> getMpaByFilmId(long filmId) {
+        return this.mpaStorage.getMpaByFilmId(filmId);
+    }
+
+    /**
+     * Получить оценки Ассоциации кинокомпаний сразу для нескольких фильмов.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return оценки Ассоциации кинокомпаний по идентификатору фильма.
+     */
+    @Override
+    public Map<Long, MotionPictureAssociation> getMpaByFilmIds(Collection<Long> filmIds) {
+        return this.mpaStorage.getMpaByFilmIds(filmIds);
+    }
+}
@@ -1,14 +1,29 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.storage.abstractions.FilmStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Хранилище фильмов в БД.
@@ -30,20 +45,45 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
      */
     private static final String GET_ALL_FILMS_QUERY = "SELECT * FROM films";
 
+    /**
+     * SQL-запрос для получения страницы фильмов.
+     */
+    private static final String GET_FILMS_PAGE_QUERY = "SELECT * FROM films WHERE id > ? ORDER BY id LIMIT ?";
+
     /**
      * SQL-запрос для получения фильма по его идентификатору.
      */
     private static final String GET_FILM_BY_ID_QUERY = "SELECT * FROM films WHERE id = ?";
 
+    /**
+     * SQL-запрос для получения фильмов по их идентификаторам.
+     */
+    private static final String GET_FILMS_BY_IDS_QUERY = "SELECT * FROM films WHERE id = ANY(?) ORDER BY id";
+
+    /**
+     * SQL-запрос для проверки существования фильма.
+     */
+    private static final String FILM_EXISTS_QUERY = "SELECT COUNT(*) FROM films WHERE id = ?";
+
+    /**
+     * SQL-запрос для проверки существования пользователя.
+     */
+    private static final String USER_EXISTS_QUERY = "SELECT COUNT(*) FROM users WHERE id = ?";
+
+    /**
+     * SQL-запрос для получения существующих идентификаторов фильмов.
+     */
+    private static final String GET_EXISTING_FILM_IDS_QUERY = "SELECT id FROM films WHERE id = ANY(?)";
+
     /**
      * SQL-запрос для получения списка популярных фильмов.
      */
-    private static final String GET_POPULAR_FILMS_QUERY = "SELECT f.*, COUNT(fl.id) as likes_count FROM films f LEFT JOIN film_likes fl ON fl.film_id = f.id GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.mpa_id ORDER BY likes_count DESC LIMIT ?";
+    private static final String GET_POPULAR_FILMS_QUERY = "SELECT * FROM films ORDER BY likes_count DESC, id LIMIT ?";
 
     /**
      * SQL-запрос для обновления фильма.
      */
-    private static final String UPDATE_FILM_QUERY = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE id = ?";
+    private static final String UPDATE_FILM_QUERY = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ?, version = version + 1 WHERE id = ?";
 
     /**
      * SQL-запрос для добавления жанра для фильма.
@@ -51,20 +91,78 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
     private static final String ADD_GENRE_TO_FILM_QUERY = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
 
     /**
-     * SQL-запрос для удаления жанров фильма.
+     * SQL-запрос для получения идентификаторов жанров фильма.
+     */
+    private static final String GET_FILM_GENRE_IDS_QUERY = "SELECT genre_id FROM film_genres WHERE film_id = ?";
+
+    /**
+     * SQL-запрос для удаления жанра фильма.
      */
-    private static final String DELETE_GENRES_FROM_FILM_QUERY = "DELETE FROM film_genres WHERE film_id = ?";
+    private static final String DELETE_GENRE_FROM_FILM_QUERY = "DELETE FROM film_genres WHERE film_id = ? AND genre_id = ?";
 
     /**
-     * SQL-запрос для добавления фильму лайка от пользователя.
+     * SQL-запрос для добавления фильму лайка от пользователя; если лайк уже есть, ничего не меняет.
      */
-    private static final String ADD_LIKE_TO_FILM_QUERY = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
+    private static final String ADD_LIKE_TO_FILM_QUERY = "MERGE INTO film_likes fl USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) v (film_id, user_id) "
+            + "ON fl.film_id = v.film_id AND fl.user_id = v.user_id "
+            + "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (v.film_id, v.user_id)";
 
     /**
      * SQL-запрос для удаления лайка от пользователя.
      */
     private static final String REMOVE_LIKE_FROM_FILM_QUERY = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
 
+    /**
+     * SQL-запрос для получения всех пользовательских лайков.
+     */
+    private static final String GET_ALL_LIKES_QUERY = "SELECT film_id, user_id FROM film_likes";
+
+    /**
+     * SQL-запрос для увеличения счётчика лайков фильма.
+     */
+    private static final String INCREMENT_LIKES_COUNT_QUERY = "UPDATE films SET likes_count = likes_count + 1, version = version + 1 WHERE id = ?";
+
+    /**
+     * SQL-запрос для уменьшения счётчика лайков фильма.
+     */
+    private static final String DECREMENT_LIKES_COUNT_QUERY = "UPDATE films SET likes_count = GREATEST(likes_count - 1, 0), version = version + 1 WHERE id = ?";
+
+    /**
+     * SQL-запрос для пересчёта счётчиков лайков всех фильмов по таблице лайков; версия меняется только у исправленных фильмов.
+     */
+    private static final String REBUILD_LIKES_COUNT_QUERY = "UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id), version = version + 1 "
+            + "WHERE likes_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)";
+
+    /**
+     * SQL-запрос для проверки, применена ли миграция.
+     */
+    private static final String MIGRATION_APPLIED_QUERY = "SELECT COUNT(*) FROM schema_migrations WHERE name = ?";
+
+    /**
+     * SQL-запрос для отметки миграции как применённой.
+     */
+    private static final String INSERT_MIGRATION_QUERY = "INSERT INTO schema_migrations (name) VALUES (?)";
+
+    /**
+     * Имя миграции, заполняющей счётчики лайков после добавления столбца {@code likes_count}.
+     */
+    private static final String LIKES_COUNT_MIGRATION = "films.likes_count";
+
+    /**
+     * SQL-запрос для пересчёта счётчиков лайков указанных фильмов по таблице лайков.
+     */
+    private static final String REBUILD_FILMS_LIKES_COUNT_QUERY = "UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id), version = version + 1 WHERE f.id = ANY(?)";
+
+    /**
+     * SQL-запрос для получения версии фильма.
+     */
+    private static final String GET_FILM_VERSION_QUERY = "SELECT version FROM films WHERE id = ?";
+
+    /**
+     * SQL-запрос для получения версии коллекции всех фильмов.
+     */
+    private static final String GET_FILMS_VERSION_QUERY = "SELECT COUNT(*) AS count, COALESCE(SUM(version), 0) AS items_version FROM films";
+
     /**
      * Конструктор.
      *
@@ -82,14 +180,41 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
      * @return созданный фильм.
      */
     @Override
+    @Transactional
     public Film create(Film film) {
         long id = this.insert(CREATE_FILM_QUERY, film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration().getSeconds(), film.getMpa().getId());
-        film.getGenres().forEach(g -> this.insert(ADD_GENRE_TO_FILM_QUERY, id, g.getId()));
+        this.addGenres(id, this.getGenreIds(film));
 
         film.setId(id);
         return film;
     }
 
+    /**
+     * Создать несколько фильмов пакетными запросами.
+     *
+     * @param films фильмы.
+     * @return созданные фильмы.
+     */
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        List<Long> ids = this.batchInsert(CREATE_FILM_QUERY, films.stream()
+                .map(f -> new Object[]{f.getName(), f.getDescription(), f.getReleaseDate(), f.getDuration().getSeconds(), f.getMpa().getId()})
+                .toList());
+
+        List<Object[]> genreBatchArgs = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            long id = ids.get(i);
+
+            film.setId(id);
+            this.getGenreIds(film).forEach(genreId -> genreBatchArgs.add(new Object[]{id, genreId}));
+        }
+        this.batchUpdate(ADD_GENRE_TO_FILM_QUERY, genreBatchArgs);
+
+        return films;
+    }
+
     /**
      * Получить список всех фильмов.
      *
@@ -100,6 +225,28 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
         return this.findMany(GET_ALL_FILMS_QUERY);
     }
 
+    /**
+     * Получить страницу фильмов с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего фильма предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница фильмов.
+     */
+    @Override
+    public Page<Film> getPage(long afterId, int limit) {
+        return Page.of(this.findMany(GET_FILMS_PAGE_QUERY, afterId, limit + 1), limit, Film::getId);
+    }
+
+    /**
+     * Последовательно передать все фильмы в {@code consumer}, не загружая их в память целиком.
+     *
+     * @param consumer получатель.
+     */
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        this.stream(GET_ALL_FILMS_QUERY, STREAM_FETCH_SIZE, consumer);
+    }
+
     /**
      * Получить фильм по его идентификатору.
      *
@@ -111,6 +258,21 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
         return this.findOne(GET_FILM_BY_ID_QUERY, filmId);
     }
 
+    /**
+     * Получить фильмы по их идентификаторам.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return найденные фильмы.
+     */
+    @Override
+    public Collection<Film> getFilmsByIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return List.of();
+        }
+
+        return this.findMany(GET_FILMS_BY_IDS_QUERY, (Object) filmIds.toArray(Long[]::new));
+    }
+
     /**
      * Обновить фильм.
      *
@@ -118,34 +280,50 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
      * @return обновленный фильм.
      */
     @Override
+    @Transactional
     public Film update(Film film) {
-        Optional<Film> oldFilm = this.findOne(GET_FILM_BY_ID_QUERY, film.getId());
-        if (oldFilm.isEmpty()) {
+        int rowsUpdated = this.execute(UPDATE_FILM_QUERY, film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration().getSeconds(), film.getMpa().getId(), film.getId());
+        if (rowsUpdated == 0) {
             throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", film.getId()));
         }
 
-        this.update(UPDATE_FILM_QUERY, film.getName(), film.getDescription(), film.getReleaseDate(), film.getDuration().getSeconds(), film.getMpa().getId(), film.getId());
+        Set<Long> oldGenreIds = new HashSet<>(this.findIds(GET_FILM_GENRE_IDS_QUERY, film.getId()));
+        Set<Long> newGenreIds = this.getGenreIds(film);
 
-        this.delete(DELETE_GENRES_FROM_FILM_QUERY, film.getId());
-        film.getGenres().forEach(g -> this.insert(ADD_GENRE_TO_FILM_QUERY, film.getId(), g.getId()));
+        this.batchUpdate(DELETE_GENRE_FROM_FILM_QUERY, oldGenreIds.stream()
+                .filter(genreId -> !newGenreIds.contains(genreId))
+                .map(genreId -> new Object[]{film.getId(), genreId})
+                .toList());
+        this.addGenres(film.getId(), newGenreIds.stream().filter(genreId -> !oldGenreIds.contains(genreId)).toList());
 
         return film;
     }
 
     /**
      * Поставить фильму пользовательский лайк.
+     * Если такой же лайк одновременно поставлен в другой транзакции, нарушение уникальности означает,
+     * что лайк уже есть, и метод завершается без изменения счётчика.
      *
      * @param filmId идентификатор фильма.
      * @param userId идентификатор пользователя.
      */
     @Override
+    @Transactional
     public void addLike(Long filmId, Long userId) {
-        Optional<Film> oldFilm = this.findOne(GET_FILM_BY_ID_QUERY, filmId);
-        if (oldFilm.isEmpty()) {
-            throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", filmId));
+        int rowsInserted;
+        try {
+            rowsInserted = this.execute(ADD_LIKE_TO_FILM_QUERY, filmId, userId);
+        } catch (DuplicateKeyException ex) {
+            this.checkFilmAndUserExist(filmId, userId);
+            return;
+        } catch (DataIntegrityViolationException ex) {
+            this.checkFilmAndUserExist(filmId, userId);
+            throw ex;
         }
 
-        this.insert(ADD_LIKE_TO_FILM_QUERY, filmId, userId);
+        if (rowsInserted > 0) {
+            this.update(INCREMENT_LIKES_COUNT_QUERY, filmId);
+        }
     }
 
     /**
@@ -155,13 +333,13 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
      * @param userId идентификатор пользователя.
      */
     @Override
+    @Transactional
     public void removeLike(Long filmId, Long userId) {
-        Optional<Film> oldFilm = this.findOne(GET_FILM_BY_ID_QUERY, filmId);
-        if (oldFilm.isEmpty()) {
-            throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", filmId));
+        if (this.delete(REMOVE_LIKE_FROM_FILM_QUERY, filmId, userId) > 0) {
+            this.update(DECREMENT_LIKES_COUNT_QUERY, filmId);
+        } else {
+            this.checkFilmAndUserExist(filmId, userId);
         }
-
-        this.delete(REMOVE_LIKE_FROM_FILM_QUERY, filmId, userId);
     }
 
     /**
@@ -174,4 +352,166 @@ public class FilmDbStorage extends BaseDbStorage<Film> implements FilmStorage {
     public Collection<Film> getPopularFilms(Long count) {
         return this.findMany(GET_POPULAR_FILMS_QUERY, count);
     }
+
+    /**
+     * Последовательно передать все пользовательские лайки в {@code consumer}, не загружая их в память целиком.
+     *
+     * @param consumer получатель пары (идентификатор фильма, идентификатор пользователя).
+     */
+    @Override
+    public void forEachLike(BiConsumer<Long, Long> consumer) {
+        this.forEachRow(GET_ALL_LIKES_QUERY, STREAM_FETCH_SIZE, resultSet -> consumer.accept(resultSet.getLong("film_id"), resultSet.getLong("user_id")));
+    }
+
+    /**
+     * Получить версию фильма, не загружая сам фильм.
+     *
+     * @param filmId идентификатор фильма.
+     * @return версия фильма или пустое значение, если фильм не найден.
+     */
+    @Override
+    public Optional<Long> getFilmVersion(long filmId) {
+        return this.findIds(GET_FILM_VERSION_QUERY, filmId).stream().findFirst();
+    }
+
+    /**
+     * Получить версию коллекции всех фильмов.
+     *
+     * @return версия коллекции фильмов.
+     */
+    @Override
+    public CollectionVersion getFilmsVersion() {
+        return this.findValue(GET_FILMS_VERSION_QUERY, (resultSet, rowNum) ->
+                new CollectionVersion(0, resultSet.getLong("count"), resultSet.getLong("items_version"))).orElseThrow();
+    }
+
+    /**
+     * Поставить несколько лайков пакетным запросом. Уже существующие лайки не дублируются.
+     * Счётчики лайков затронутых фильмов пересчитываются по таблице лайков.
+     *
+     * @param likes лайки.
+     */
+    @Override
+    @Transactional
+    public void addLikes(Collection<Like> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
+
+        this.batchUpdate(ADD_LIKE_TO_FILM_QUERY, likes.stream().map(l -> new Object[]{l.getFilmId(), l.getUserId()}).toList());
+        this.rebuildLikesCount(likes);
+    }
+
+    /**
+     * Удалить несколько лайков пакетным запросом.
+     * Счётчики лайков затронутых фильмов пересчитываются по таблице лайков.
+     *
+     * @param likes лайки.
+     */
+    @Override
+    @Transactional
+    public void removeLikes(Collection<Like> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
+
+        this.batchUpdate(REMOVE_LIKE_FROM_FILM_QUERY, likes.stream().map(l -> new Object[]{l.getFilmId(), l.getUserId()}).toList());
+        this.rebuildLikesCount(likes);
+    }
+
+    /**
+     * Получить идентификаторы существующих фильмов из указанных.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return идентификаторы существующих фильмов.
+     */
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Set.of();
+        }
+
+        return new HashSet<>(this.findIds(GET_EXISTING_FILM_IDS_QUERY, (Object) filmIds.toArray(Long[]::new)));
+    }
+
+    /**
+     * Пересчитать счётчики лайков всех фильмов по таблице {@code film_likes}.
+     * Используется для заполнения счётчиков после добавления столбца {@code likes_count} в существующую БД
+     * (см. {@link #migrateLikesCount()}) и для восстановления счётчиков после ручного изменения данных
+     * через {@link LikesCountEndpoint}.
+     *
+     * @return количество фильмов, счётчики которых были исправлены.
+     */
+    public int rebuildLikesCount() {
+        return this.execute(REBUILD_LIKES_COUNT_QUERY);
+    }
+
+    /**
+     * Заполнить счётчики лайков по таблице {@code film_likes}, если это ещё не сделано в этой БД.
+     * Миграция отмечается в таблице {@code schema_migrations}, поэтому при последующих запусках
+     * выполняется только проверка отметки.
+     *
+     * @return {@code true}, если миграция выполнена при этом вызове.
+     */
+    @Transactional
+    public boolean migrateLikesCount() {
+        if (this.exists(MIGRATION_APPLIED_QUERY, LIKES_COUNT_MIGRATION)) {
+            return false;
+        }
+
+        this.rebuildLikesCount();
+        this.update(INSERT_MIGRATION_QUERY, LIKES_COUNT_MIGRATION);
+
+        return true;
+    }
+
+    // region Facilities
+
+    /**
+     * Проверить, что фильм и пользователь существуют.
+     * Вызывается только после неудачной записи, чтобы определить, на какую сущность указывает ошибка.
+     *
+     * @param filmId идентификатор фильма.
+     * @param userId идентификатор пользователя.
+     */
+    private void checkFilmAndUserExist(Long filmId, Long userId) {
+        if (!this.exists(FILM_EXISTS_QUERY, filmId)) {
+            throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", filmId));
+        }
+
+        if (!this.exists(USER_EXISTS_QUERY, userId)) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        }
+    }
+
+    /**
+     * Пересчитать счётчики лайков фильмов, затронутых указанными лайками.
+     *
+     * @param likes лайки.
+     */
+    private void rebuildLikesCount(Collection<Like> likes) {
+        this.execute(REBUILD_FILMS_LIKES_COUNT_QUERY, (Object) likes.stream().map(Like::getFilmId).distinct().toArray(Long[]::new));
+    }
+
+    /**
+     * Получить идентификаторы жанров фильма без повторов.
+     *
+     * @param film фильм.
+     * @return идентификаторы жанров.
+     */
+    private Set<Long> getGenreIds(Film film) {
+        return film.getGenres().stream().map(Genre::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Добавить фильму жанры одним пакетом.
+     *
+     * @param filmId   идентификатор фильма.
+     * @param genreIds идентификаторы жанров.
+     */
+    private void addGenres(long filmId, Collection<Long> genreIds) {
+        this.batchUpdate(ADD_GENRE_TO_FILM_QUERY, genreIds.stream().map(genreId -> new Object[]{filmId, genreId}).toList());
+    }
+
+    // endregion
 }
@@ -7,6 +7,7 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.abstractions.GenreStorage;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -34,6 +35,11 @@ public class GenreDbStorage extends BaseDbStorage<Genre> implements GenreStorage
      */
     private static final String GET_GENRES_BY_FILM_ID_QUERY = "SELECT g.* FROM genres g JOIN film_genres fg ON fg.genre_id = g.id WHERE fg.film_id = ? ORDER BY g.id";
 
+    /**
+     * SQL-запрос для получения жанров нескольких фильмов.
+     */
+    private static final String GET_GENRES_BY_FILM_IDS_QUERY = "SELECT fg.film_id, g.* FROM film_genres fg JOIN genres g ON g.id = fg.genre_id WHERE fg.film_id = ANY(?) ORDER BY fg.film_id, g.id";
+
     /**
      * Конструктор.
      *
@@ -75,4 +81,19 @@ public class GenreDbStorage extends BaseDbStorage<Genre> implements GenreStorage
     public Collection<Genre> getGenresByFilmId(long filmId) {
         return this.findMany(GET_GENRES_BY_FILM_ID_QUERY, filmId);
     }
+
+    /**
+     * Получить жанры сразу для нескольких фильмов.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return жанры, сгруппированные по идентификатору фильма.
+     */
+    @Override
+    public Map<Long, Collection<Genre>> getGenresByFilmIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return this.findManyGroupedBy("film_id", GET_GENRES_BY_FILM_IDS_QUERY, (Object) filmIds.toArray(Long[]::new));
+    }
 }
@@ -4,31 +4,53 @@ package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.storage.abstractions.FilmStorage;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 // endregion
 
 /**
  * Хранилище фильмов в оперативной памяти компьютера.
+ * Безопасно для одновременного использования из нескольких потоков: чтение не блокируется записью,
+ * обновление фильма заменяет его новым экземпляром, а лайки хранятся в конкурентных множествах.
  */
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
     /**
-     * Список фильмов.
+     * Список фильмов, упорядоченный по идентификатору.
      */
-    private final Map<Long, Film> films;
+    private final ConcurrentNavigableMap<Long, Film> films;
+
+    /**
+     * Последний выданный идентификатор фильма.
+     */
+    private final AtomicLong lastId;
 
     /**
      * Конструктор.
      */
     public InMemoryFilmStorage() {
-        this.films = new HashMap<>();
+        this.films = new ConcurrentSkipListMap<>();
+        this.lastId = new AtomicLong();
     }
 
     /**
@@ -39,12 +61,25 @@ public class InMemoryFilmStorage implements FilmStorage {
      */
     @Override
     public Film create(Film film) {
-        film.setId(this.getNextId());
+        film.setId(this.lastId.incrementAndGet());
+        film.setUsersLikes(this.newLikesSet(film.getUsersLikes()));
 
         this.films.put(film.getId(), film);
         return film;
     }
 
+    /**
+     * Создать несколько фильмов.
+     *
+     * @param films фильмы.
+     * @return созданные фильмы.
+     */
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        films.forEach(this::create);
+        return films;
+    }
+
     /**
      * Получить список всех фильмов.
      *
@@ -55,6 +90,32 @@ public class InMemoryFilmStorage implements FilmStorage {
         return this.films.values();
     }
 
+    /**
+     * Получить страницу фильмов с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего фильма предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница фильмов.
+     */
+    @Override
+    public Page<Film> getPage(long afterId, int limit) {
+        return Page.of(this.films.tailMap(afterId, false)
+                .values()
+                .stream()
+                .limit(limit + 1)
+                .toList(), limit, Film::getId);
+    }
+
+    /**
+     * Последовательно передать все фильмы в {@code consumer}.
+     *
+     * @param consumer получатель.
+     */
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        this.films.values().forEach(consumer);
+    }
+
     /**
      * Получить фильм по его идентификатору.
      *
@@ -66,6 +127,20 @@ public class InMemoryFilmStorage implements FilmStorage {
         return Optional.ofNullable(this.films.get(filmId));
     }
 
+    /**
+     * Получить фильмы по их идентификаторам.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return найденные фильмы.
+     */
+    @Override
+    public Collection<Film> getFilmsByIds(Collection<Long> filmIds) {
+        return filmIds.stream()
+                .map(this.films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     /**
      * Обновить фильм.
      *
@@ -74,17 +149,27 @@ public class InMemoryFilmStorage implements FilmStorage {
      */
     @Override
     public Film update(Film film) {
-        Film oldFilm = this.films.get(film.getId());
-        if (oldFilm == null) {
+        Film updatedFilm = this.films.computeIfPresent(film.getId(), (id, oldFilm) -> {
+            Film newFilm = new Film();
+
+            newFilm.setId(id);
+            newFilm.setDescription(film.getDescription());
+            newFilm.setDuration(film.getDuration());
+            newFilm.setName(film.getName());
+            newFilm.setReleaseDate(film.getReleaseDate());
+            newFilm.setMpa(oldFilm.getMpa());
+            newFilm.setGenres(oldFilm.getGenres());
+            newFilm.setUsersLikes(oldFilm.getUsersLikes());
+            newFilm.setVersion(oldFilm.getVersion() + 1);
+
+            return newFilm;
+        });
+
+        if (updatedFilm == null) {
             throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", film.getId()));
         }
 
-        oldFilm.setDescription(film.getDescription());
-        oldFilm.setDuration(film.getDuration());
-        oldFilm.setName(film.getName());
-        oldFilm.setReleaseDate(film.getReleaseDate());
-
-        return oldFilm;
+        return updatedFilm;
     }
 
     /**
@@ -100,7 +185,9 @@ public class InMemoryFilmStorage implements FilmStorage {
             throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", filmId));
         }
 
-        film.getUsersLikes().add(userId);
+        if (film.getUsersLikes().add(userId)) {
+            this.incrementVersion(filmId);
+        }
     }
 
     /**
@@ -116,39 +203,144 @@ public class InMemoryFilmStorage implements FilmStorage {
             throw new NotFoundException(String.format("Фильм с идентификатором %d не найден", filmId));
         }
 
-        film.getUsersLikes().remove(userId);
+        if (film.getUsersLikes().remove(userId)) {
+            this.incrementVersion(filmId);
+        }
+    }
+
+    /**
+     * Поставить несколько лайков. Уже существующие лайки не дублируются.
+     *
+     * @param likes лайки.
+     */
+    @Override
+    public void addLikes(Collection<Like> likes) {
+        likes.forEach(like -> this.addLike(like.getFilmId(), like.getUserId()));
+    }
+
+    /**
+     * Удалить несколько лайков. Отсутствующие лайки пропускаются.
+     *
+     * @param likes лайки.
+     */
+    @Override
+    public void removeLikes(Collection<Like> likes) {
+        likes.forEach(like -> this.removeLike(like.getFilmId(), like.getUserId()));
+    }
+
+    /**
+     * Получить идентификаторы существующих фильмов из указанных.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return идентификаторы существующих фильмов.
+     */
+    @Override
+    public Set<Long> getExistingIds(Collection<Long> filmIds) {
+        return filmIds.stream()
+                .filter(this.films::containsKey)
+                .collect(Collectors.toSet());
     }
 
     /**
      * Получить {@code count} популярных фильмов.
+     * Выбирает фильмы за один проход с кучей размером {@code count}, не сортируя весь каталог.
      *
      * @param count количество фильмов.
      * @return {@code count} популярных фильмов.
      */
     @Override
     public Collection<Film> getPopularFilms(Long count) {
-        return this.films.values()
-                .stream()
-                .sorted((f1, f2) -> Integer.compare(f2.getUsersLikes().size(), f1.getUsersLikes().size()))
-                .limit(count)
+        Comparator<Map.Entry<Film, Integer>> byLikes = Map.Entry.comparingByValue();
+        PriorityQueue<Map.Entry<Film, Integer>> top = new PriorityQueue<>(byLikes);
+
+        this.films.values().forEach(f -> {
+            top.offer(Map.entry(f, f.getUsersLikes().size()));
+            if (top.size() > count) {
+                top.poll();
+            }
+        });
+
+        return top.stream()
+                .sorted(byLikes.reversed())
+                .map(Map.Entry::getKey)
                 .toList();
     }
 
+    /**
+     * Последовательно передать все пользовательские лайки в {@code consumer}.
+     *
+     * @param consumer получатель пары (идентификатор фильма, идентификатор пользователя).
+     */
+    @Override
+    public void forEachLike(BiConsumer<Long, Long> consumer) {
+        this.films.values().forEach(f -> f.getUsersLikes().forEach(userId -> consumer.accept(f.getId(), userId)));
+    }
+
+    /**
+     * Получить версию фильма, не загружая сам фильм.
+     *
+     * @param filmId идентификатор фильма.
+     * @return версия фильма или пустое значение, если фильм не найден.
+     */
+    @Override
+    public Optional<Long> getFilmVersion(long filmId) {
+        return this.getFilmById(filmId).map(Film::getVersion);
+    }
+
+    /**
+     * Получить версию коллекции всех фильмов.
+     *
+     * @return версия коллекции фильмов.
+     */
+    @Override
+    public CollectionVersion getFilmsVersion() {
+        long count = 0;
+        long itemsVersion = 0;
+        for (Film film : this.films.values()) {
+            count++;
+            itemsVersion += film.getVersion();
+        }
+
+        return new CollectionVersion(0, count, itemsVersion);
+    }
+
     // region Facilities
 
     /**
-     * Получить идентификатор для создания нового фильма.
+     * Увеличить версию фильма, заменив его копией с новой версией. Хранимый экземпляр не изменяется:
+     * функция пересчёта {@link ConcurrentSkipListMap#computeIfPresent} может вызываться повторно.
      *
-     * @return идентификатор для создания нового фильма.
+     * @param filmId идентификатор фильма.
      */
-    private long getNextId() {
-        long currentMaxId = this.films.values()
-                .stream()
-                .mapToLong(Film::getId)
-                .max()
-                .orElse(0);
+    private void incrementVersion(Long filmId) {
+        this.films.computeIfPresent(filmId, (id, film) -> {
+            Film newFilm = new Film();
+
+            newFilm.setId(id);
+            newFilm.setDescription(film.getDescription());
+            newFilm.setDuration(film.getDuration());
+            newFilm.setName(film.getName());
+            newFilm.setReleaseDate(film.getReleaseDate());
+            newFilm.setMpa(film.getMpa());
+            newFilm.setGenres(film.getGenres());
+            newFilm.setUsersLikes(film.getUsersLikes());
+            newFilm.setVersion(film.getVersion() + 1);
+
+            return newFilm;
+        });
+    }
+
+    /**
+     * Создать конкурентное множество лайков.
+     *
+     * @param likes начальные лайки.
+     * @return множество лайков.
+     */
+    private Set<Long> newLikesSet(Collection<Long> likes) {
+        Set<Long> likesSet = ConcurrentHashMap.newKeySet();
+        likesSet.addAll(likes);
 
-        return ++currentMaxId;
+        return likesSet;
     }
 
     // endregion
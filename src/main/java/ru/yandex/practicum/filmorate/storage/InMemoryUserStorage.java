@@ -5,29 +5,66 @@ package ru.yandex.practicum.filmorate.storage;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.UpdateEntityException;
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.abstractions.UserStorage;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 // endregion
 
 /**
  * Хранилище пользователей в оперативной памяти компьютера.
+ * Друзья хранятся в индексе смежности с упорядоченными множествами идентификаторов,
+ * поиск по e-mail и логину выполняется по хеш-индексам. Все структуры безопасны для одновременного доступа.
  */
 @Component
 public class InMemoryUserStorage implements UserStorage {
     /**
-     * Список пользователей.
+     * Список пользователей, упорядоченный по идентификатору.
      */
-    private final Map<Long, User> users;
+    private final ConcurrentNavigableMap<Long, User> users;
+
+    /**
+     * Последний выданный идентификатор пользователя.
+     */
+    private final AtomicLong lastId;
+
+    /**
+     * Индекс смежности: идентификатор пользователя - упорядоченные идентификаторы его друзей.
+     */
+    private final ConcurrentMap<Long, NavigableSet<Long>> friends;
+
+    /**
+     * Индекс пользователей по e-mail: e-mail - упорядоченные идентификаторы пользователей.
+     */
+    private final ConcurrentMap<String, Set<Long>> usersByEmail;
+
+    /**
+     * Индекс пользователей по логину.
+     */
+    private final ConcurrentMap<String, Set<Long>> usersByLogin;
 
     /**
      * Конструктор.
      */
     public InMemoryUserStorage() {
-        this.users = new HashMap<>();
+        this.users = new ConcurrentSkipListMap<>();
+        this.lastId = new AtomicLong();
+        this.friends = new ConcurrentHashMap<>();
+        this.usersByEmail = new ConcurrentHashMap<>();
+        this.usersByLogin = new ConcurrentHashMap<>();
     }
 
     /**
@@ -38,12 +75,29 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public User create(User user) {
-        user.setId(this.getNextId());
+        long id = this.lastId.incrementAndGet();
+
+        user.setId(id);
+        this.friends.put(id, new ConcurrentSkipListSet<>());
+        index(this.usersByEmail, user.getEmail(), id);
+        index(this.usersByLogin, user.getLogin(), id);
 
-        this.users.put(user.getId(), user);
+        this.users.put(id, user);
         return user;
     }
 
+    /**
+     * Создать несколько пользователей.
+     *
+     * @param users пользователи.
+     * @return созданные пользователи.
+     */
+    @Override
+    public List<User> createAll(List<User> users) {
+        users.forEach(this::create);
+        return users;
+    }
+
     /**
      * Получить список всех пользователей.
      *
@@ -54,6 +108,32 @@ public class InMemoryUserStorage implements UserStorage {
         return this.users.values();
     }
 
+    /**
+     * Получить страницу пользователей с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего пользователя предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница пользователей.
+     */
+    @Override
+    public Page<User> getPage(long afterId, int limit) {
+        return Page.of(this.users.tailMap(afterId, false)
+                .values()
+                .stream()
+                .limit(limit + 1)
+                .toList(), limit, User::getId);
+    }
+
+    /**
+     * Последовательно передать всех пользователей в {@code consumer}.
+     *
+     * @param consumer получатель.
+     */
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        this.users.values().forEach(consumer);
+    }
+
     /**
      * Найти пользователя по его идентификатору.
      *
@@ -65,6 +145,74 @@ public class InMemoryUserStorage implements UserStorage {
         return Optional.ofNullable(this.users.get(userId));
     }
 
+    /**
+     * Найти пользователей по их идентификаторам.
+     *
+     * @param userIds идентификаторы пользователей.
+     * @return найденные пользователи.
+     */
+    @Override
+    public Collection<User> findByIds(Collection<Long> userIds) {
+        return userIds.stream()
+                .map(this.users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Получить идентификаторы существующих пользователей из указанных.
+     *
+     * @param userIds идентификаторы пользователей.
+     * @return идентификаторы существующих пользователей.
+     */
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> userIds) {
+        return userIds.stream()
+                .filter(this.users::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Получить уже используемые e-mail из указанных.
+     *
+     * @param emails адреса электронной почты.
+     * @return используемые адреса электронной почты.
+     */
+    @Override
+    public Set<String> findUsedEmails(Collection<String> emails) {
+        return emails.stream()
+                .filter(this.usersByEmail::containsKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Найти пользователя по его e-mail. Если e-mail используют несколько пользователей, возвращается созданный первым.
+     *
+     * @param email e-mail пользователя.
+     * @return пользователь.
+     */
+    public Optional<User> findByEmail(String email) {
+        return this.usersByEmail.getOrDefault(email, Set.of())
+                .stream()
+                .map(this.users::get)
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    /**
+     * Найти пользователей по логину.
+     *
+     * @param login логин пользователя.
+     * @return список пользователей с указанным логином.
+     */
+    public Collection<User> findByLogin(String login) {
+        return this.usersByLogin.getOrDefault(login, Set.of())
+                .stream()
+                .map(this.users::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     /**
      * Обновить пользователя.
      *
@@ -73,21 +221,44 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public User update(User user) {
-        User oldUser = this.users.get(user.getId());
+        Long userId = user.getId();
+
+        User oldUser = this.users.get(userId);
         if (oldUser == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", user.getId()));
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
         }
 
-        if (this.users.values().stream().anyMatch(u -> !Objects.equals(u.getId(), user.getId()) && Objects.equals(u.getEmail(), user.getEmail()))) {
-            throw new UpdateEntityException("Новый e-mail пользователя (" + user.getEmail() + ") уже используется");
+        boolean emailChanged = !Objects.equals(oldUser.getEmail(), user.getEmail());
+        if (emailChanged) {
+            Set<Long> ownerIds = this.usersByEmail.computeIfAbsent(user.getEmail(), e -> new ConcurrentSkipListSet<>(Set.of(userId)));
+            if (!ownerIds.contains(userId)) {
+                throw new UpdateEntityException("Новый e-mail пользователя (" + user.getEmail() + ") уже используется");
+            }
         }
 
-        oldUser.setBirthday(user.getBirthday());
-        oldUser.setEmail(user.getEmail());
-        oldUser.setLogin(user.getLogin());
-        oldUser.setName(user.getName());
+        User updatedUser = this.users.computeIfPresent(userId, (id, u) -> {
+            User newUser = new User();
+
+            newUser.setId(id);
+            newUser.setBirthday(user.getBirthday());
+            newUser.setEmail(user.getEmail());
+            newUser.setLogin(user.getLogin());
+            newUser.setName(user.getName());
+            newUser.setVersion(u.getVersion() + 1);
+
+            return newUser;
+        });
+
+        if (emailChanged) {
+            unindex(this.usersByEmail, oldUser.getEmail(), userId);
+        }
 
-        return oldUser;
+        if (!Objects.equals(oldUser.getLogin(), user.getLogin())) {
+            unindex(this.usersByLogin, oldUser.getLogin(), userId);
+            index(this.usersByLogin, user.getLogin(), userId);
+        }
+
+        return updatedUser;
     }
 
     /**
@@ -98,18 +269,25 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public void addFriend(Long userId, Long friendId) {
-        User user = this.users.get(userId);
-        if (user == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
-        }
+        NavigableSet<Long> userFriends = this.getFriendIds(userId);
+        NavigableSet<Long> friendFriends = this.getFriendIds(friendId);
 
-        User friend = this.users.get(friendId);
-        if (friend == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", friendId));
+        if (userFriends.add(friendId)) {
+            this.incrementVersion(userId);
+        }
+        if (friendFriends.add(userId)) {
+            this.incrementVersion(friendId);
         }
+    }
 
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
+    /**
+     * Добавить несколько связей дружбы. Уже существующие связи не дублируются.
+     *
+     * @param friendships связи дружбы.
+     */
+    @Override
+    public void addFriends(Collection<Friendship> friendships) {
+        friendships.forEach(f -> this.addFriend(f.getUserId(), f.getFriendId()));
     }
 
     /**
@@ -120,21 +298,33 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public Collection<User> getFriends(Long userId) {
-        User user = this.users.get(userId);
-        if (user == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
-        }
-
-        Set<Long> friends = user.getFriends();
+        return this.getFriendIds(userId)
+                .stream()
+                .map(this.users::get)
+                .toList();
+    }
 
-        return this.users.values()
+    /**
+     * Получить страницу друзей пользователя с идентификатором больше {@code afterId}.
+     *
+     * @param userId  идентификатор пользователя.
+     * @param afterId идентификатор последнего друга предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница друзей пользователя.
+     */
+    @Override
+    public Page<User> getFriendsPage(Long userId, long afterId, int limit) {
+        return Page.of(this.getFriendIds(userId)
+                .tailSet(afterId, false)
                 .stream()
-                .filter(u -> friends.contains(u.getId()))
-                .collect(Collectors.toList());
+                .limit(limit + 1)
+                .map(this.users::get)
+                .toList(), limit, User::getId);
     }
 
     /**
      * Получить общих друзей двух пользователей.
+     * Упорядоченные множества друзей пересекаются слиянием за время, пропорциональное количеству их друзей.
      *
      * @param userId      идентификатор пользователя.
      * @param otherUserId идентификатор другого пользователя.
@@ -142,23 +332,27 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public Collection<User> getCommonFriends(Long userId, Long otherUserId) {
-        User user = this.users.get(userId);
-        if (user == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
-        }
+        Iterator<Long> userFriends = this.getFriendIds(userId).iterator();
+        Iterator<Long> otherUserFriends = this.getFriendIds(otherUserId).iterator();
 
-        User otherUser = this.users.get(otherUserId);
-        if (otherUser == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", otherUserId));
-        }
+        List<User> commonFriends = new ArrayList<>();
 
-        Set<Long> userFriends = user.getFriends();
-        Set<Long> otherUserFriend = otherUser.getFriends();
+        Long userFriendId = nextOrNull(userFriends);
+        Long otherUserFriendId = nextOrNull(otherUserFriends);
+        while (userFriendId != null && otherUserFriendId != null) {
+            int comparison = Long.compare(userFriendId, otherUserFriendId);
+            if (comparison == 0) {
+                commonFriends.add(this.users.get(userFriendId));
+            }
+            if (comparison <= 0) {
+                userFriendId = nextOrNull(userFriends);
+            }
+            if (comparison >= 0) {
+                otherUserFriendId = nextOrNull(otherUserFriends);
+            }
+        }
 
-        return this.users.values()
-                .stream()
-                .filter(u -> userFriends.contains(u.getId()) && otherUserFriend.contains(u.getId()))
-                .toList();
+        return commonFriends;
     }
 
     /**
@@ -169,35 +363,125 @@ public class InMemoryUserStorage implements UserStorage {
      */
     @Override
     public void removeFriend(Long userId, Long friendId) {
+        NavigableSet<Long> userFriends = this.getFriendIds(userId);
+        NavigableSet<Long> friendFriends = this.getFriendIds(friendId);
+
+        if (userFriends.remove(friendId)) {
+            this.incrementVersion(userId);
+        }
+        if (friendFriends.remove(userId)) {
+            this.incrementVersion(friendId);
+        }
+    }
+
+    /**
+     * Последовательно передать все связи дружбы в {@code consumer}.
+     *
+     * @param consumer получатель пары (идентификатор пользователя, идентификатор друга).
+     */
+    @Override
+    public void forEachFriendship(BiConsumer<Long, Long> consumer) {
+        this.friends.forEach((userId, friendIds) -> friendIds.forEach(friendId -> consumer.accept(userId, friendId)));
+    }
+
+    /**
+     * Получить версию списка друзей пользователя, не загружая самих друзей.
+     *
+     * @param userId идентификатор пользователя.
+     * @return версия списка друзей или пустое значение, если пользователь не найден.
+     */
+    @Override
+    public Optional<CollectionVersion> getFriendsVersion(Long userId) {
         User user = this.users.get(userId);
         if (user == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+            return Optional.empty();
         }
 
-        User friend = this.users.get(friendId);
-        if (friend == null) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", friendId));
+        long count = 0;
+        long itemsVersion = 0;
+        for (Long friendId : this.getFriendIds(userId)) {
+            count++;
+            itemsVersion += this.users.get(friendId).getVersion();
         }
 
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
+        return Optional.of(new CollectionVersion(user.getVersion(), count, itemsVersion));
     }
 
     // region Facilities
 
     /**
-     * Получить идентификатор для создания нового пользователя.
+     * Увеличить версию пользователя, заменив его копией с новой версией. Хранимый экземпляр не изменяется:
+     * функция пересчёта {@link ConcurrentSkipListMap#computeIfPresent} может вызываться повторно.
      *
-     * @return идентификатор для создания нового пользователя.
+     * @param userId идентификатор пользователя.
      */
-    private long getNextId() {
-        long currentMaxId = this.users.values()
-                .stream()
-                .mapToLong(User::getId)
-                .max()
-                .orElse(0);
+    private void incrementVersion(Long userId) {
+        this.users.computeIfPresent(userId, (id, user) -> {
+            User newUser = new User();
 
-        return ++currentMaxId;
+            newUser.setId(id);
+            newUser.setBirthday(user.getBirthday());
+            newUser.setEmail(user.getEmail());
+            newUser.setLogin(user.getLogin());
+            newUser.setName(user.getName());
+            newUser.setVersion(user.getVersion() + 1);
+
+            return newUser;
+        });
+    }
+
+    /**
+     * Получить упорядоченные идентификаторы друзей пользователя.
+     *
+     * @param userId идентификатор пользователя.
+     * @return идентификаторы друзей пользователя.
+     */
+    private NavigableSet<Long> getFriendIds(Long userId) {
+        NavigableSet<Long> friendIds = this.friends.get(userId);
+        if (friendIds == null) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        }
+
+        return friendIds;
+    }
+
+    /**
+     * Добавить пользователя в индекс по e-mail или логину.
+     *
+     * @param index  индекс.
+     * @param key    e-mail или логин пользователя.
+     * @param userId идентификатор пользователя.
+     */
+    private static void index(ConcurrentMap<String, Set<Long>> index, String key, Long userId) {
+        index.compute(key, (k, ids) -> {
+            Set<Long> userIds = ids == null ? new ConcurrentSkipListSet<>() : ids;
+            userIds.add(userId);
+            return userIds;
+        });
+    }
+
+    /**
+     * Удалить пользователя из индекса по e-mail или логину.
+     *
+     * @param index  индекс.
+     * @param key    e-mail или логин пользователя.
+     * @param userId идентификатор пользователя.
+     */
+    private static void unindex(ConcurrentMap<String, Set<Long>> index, String key, Long userId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(userId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Получить следующий элемент итератора.
+     *
+     * @param iterator итератор.
+     * @return следующий элемент или {@code null}, если элементов больше нет.
+     */
+    private static Long nextOrNull(Iterator<Long> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
     }
 
     // endregion
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+// endregion
+
+/**
+ * Эндпоинт {@code likescount} для пересчёта счётчиков лайков фильмов по таблице {@code film_likes}:
+ * операция {@code rebuild} исправляет счётчики, расходящиеся с таблицей лайков, и возвращает количество исправленных фильмов.
+ * Используется один раз после добавления столбца {@code likes_count} в существующую БД и после изменения
+ * лайков в БД в обход приложения.
+ */
+@Component
+@Endpoint(id = "likescount")
+@Slf4j
+public class LikesCountEndpoint {
+    /**
+     * Хранилище фильмов в БД.
+     */
+    private final FilmDbStorage filmStorage;
+
+    /**
+     * Конструктор.
+     *
+     * @param filmStorage хранилище фильмов в БД.
+     */
+    public LikesCountEndpoint(FilmDbStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    /**
+     * Пересчитать счётчики лайков.
+     *
+     * @return количество фильмов, счётчики которых были исправлены.
+     */
+    @WriteOperation
+    public int rebuild() {
+        int rebuilt = this.filmStorage.rebuildLikesCount();
+        log.info("Пересчитаны счётчики лайков фильмов: исправлено {}", rebuilt);
+
+        return rebuilt;
+    }
+}
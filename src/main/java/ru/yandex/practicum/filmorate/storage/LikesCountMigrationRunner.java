@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+// endregion
+
+/**
+ * Разовое заполнение счётчиков лайков фильмов при первом запуске приложения на БД.
+ * После выполнения миграция отмечается в БД, и при следующих запусках счётчики не пересчитываются.
+ */
+@Component
+@Slf4j
+public class LikesCountMigrationRunner implements ApplicationRunner {
+    /**
+     * Хранилище фильмов в БД.
+     */
+    private final FilmDbStorage filmDbStorage;
+
+    /**
+     * Конструктор.
+     *
+     * @param filmDbStorage хранилище фильмов в БД.
+     */
+    public LikesCountMigrationRunner(FilmDbStorage filmDbStorage) {
+        this.filmDbStorage = filmDbStorage;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (this.filmDbStorage.migrateLikesCount()) {
+            log.info("Заполнены счётчики лайков фильмов");
+        }
+    }
+}
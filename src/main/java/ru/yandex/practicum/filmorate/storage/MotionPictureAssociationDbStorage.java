@@ -7,6 +7,8 @@ import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
 import ru.yandex.practicum.filmorate.storage.abstractions.MotionPictureAssociationStorage;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -34,6 +36,11 @@ public final class MotionPictureAssociationDbStorage extends BaseDbStorage<Motio
      */
     private static final String GET_MPA_BY_FILM_ID_QUERY = "SELECT m.* FROM mpa m JOIN films f ON f.mpa_id = m.id WHERE f.id = ?";
 
+    /**
+     * SQL-запрос для получения оценок Ассоциации кинокомпаний для нескольких фильмов.
+     */
+    private static final String GET_MPA_BY_FILM_IDS_QUERY = "SELECT f.id AS film_id, m.* FROM films f JOIN mpa m ON m.id = f.mpa_id WHERE f.id = ANY(?)";
+
     /**
      * Конструктор.
      *
@@ -75,4 +82,23 @@ public final class MotionPictureAssociationDbStorage extends BaseDbStorage<Motio
     public Optional<MotionPictureAssociation> getMpaByFilmId(long filmId) {
         return this.findOne(GET_MPA_BY_FILM_ID_QUERY, filmId);
     }
+
+    /**
+     * Получить оценки Ассоциации кинокомпаний сразу для нескольких фильмов.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return оценки Ассоциации кинокомпаний по идентификатору фильма.
+     */
+    @Override
+    public Map<Long, MotionPictureAssociation> getMpaByFilmIds(Collection<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, MotionPictureAssociation> result = new HashMap<>();
+        this.findManyGroupedBy("film_id", GET_MPA_BY_FILM_IDS_QUERY, (Object) filmIds.toArray(Long[]::new))
+                .forEach((filmId, mpa) -> result.put(filmId, mpa.iterator().next()));
+
+        return result;
+    }
 }
@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import ru.yandex.practicum.filmorate.util.jfr.StorageQueryEvent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// endregion
+
+/**
+ * Метрики SQL-запросов хранилища: гистограмма времени выполнения и счётчики возвращённых и изменённых строк
+ * для каждого именованного запроса. Имя запроса - имя константы {@code *_QUERY} хранилища, в котором он объявлен,
+ * например {@code FilmDbStorage.GET_POPULAR_FILMS_QUERY}.
+ * Метрики регистрируются в {@link Metrics#globalRegistry}, к которому Spring Boot подключает реестр приложения.
+ * Каждое выполнение запроса также записывается событием JFR {@link StorageQueryEvent}, если оно включено в активной записи.
+ */
+final class QueryMetrics {
+    /**
+     * Название метрики времени выполнения запросов.
+     */
+    static final String QUERY_TIMER = "filmorate.db.query";
+
+    /**
+     * Название метрики количества строк, возвращённых запросами.
+     */
+    static final String ROWS_RETURNED_COUNTER = "filmorate.db.query.rows.returned";
+
+    /**
+     * Название метрики количества строк, изменённых запросами.
+     */
+    static final String ROWS_AFFECTED_COUNTER = "filmorate.db.query.rows.affected";
+
+    /**
+     * Имя запроса, не объявленного константой хранилища.
+     */
+    static final String UNNAMED_QUERY = "unnamed";
+
+    /**
+     * Имена запросов по их тексту.
+     */
+    private final Map<String, String> queryNames;
+
+    /**
+     * Метрики запросов по их тексту.
+     */
+    private final ConcurrentMap<String, QueryMeters> meters;
+
+    /**
+     * Реестр метрик.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Конструктор.
+     *
+     * @param storage класс хранилища, константы запросов которого дают имена метрикам.
+     */
+    QueryMetrics(Class<?> storage) {
+        this.queryNames = new LinkedHashMap<>();
+        queryConstants(storage).forEach((name, query) -> this.queryNames.putIfAbsent(query, name));
+        this.meters = new ConcurrentHashMap<>();
+        this.registry = Metrics.globalRegistry;
+    }
+
+    /**
+     * Получить SQL-запросы, объявленные в классе хранилища константами {@code *_QUERY}.
+     *
+     * @param storage класс хранилища.
+     * @return тексты запросов по их именам вида {@code FilmDbStorage.GET_FILM_BY_ID_QUERY}.
+     */
+    static Map<String, String> queryConstants(Class<?> storage) {
+        Map<String, String> queries = new LinkedHashMap<>();
+
+        for (Field field : storage.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers) || field.getType() != String.class || !field.getName().endsWith("_QUERY")) {
+                continue;
+            }
+
+            try {
+                field.setAccessible(true);
+                queries.put(storage.getSimpleName() + "." + field.getName(), (String) field.get(null));
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException("Не удалось прочитать запрос " + field, ex);
+            }
+        }
+
+        return queries;
+    }
+
+    /**
+     * Выполнить запрос на чтение, замерив время его выполнения и количество возвращённых строк.
+     *
+     * @param query SQL-запрос.
+     * @param call  выполнение запроса.
+     * @param rows  количество строк в результате.
+     * @param <R>   тип результата.
+     * @return результат запроса.
+     */
+    <R> R recordQuery(String query, Supplier<R> call, ToLongFunction<R> rows) {
+        return this.record(query, call, rows, true);
+    }
+
+    /**
+     * Выполнить запрос на изменение, замерив время его выполнения и количество изменённых строк.
+     *
+     * @param query SQL-запрос.
+     * @param call  выполнение запроса.
+     * @param rows  количество изменённых строк.
+     * @param <R>   тип результата.
+     * @return результат запроса.
+     */
+    <R> R recordUpdate(String query, Supplier<R> call, ToLongFunction<R> rows) {
+        return this.record(query, call, rows, false);
+    }
+
+    // region Facilities
+
+    /**
+     * Метрики одного запроса.
+     *
+     * @param name         имя запроса.
+     * @param timer        время выполнения.
+     * @param rowsReturned количество возвращённых строк.
+     * @param rowsAffected количество изменённых строк.
+     */
+    private record QueryMeters(String name, Timer timer, Counter rowsReturned, Counter rowsAffected) {
+    }
+
+    /**
+     * Выполнить запрос и записать его метрики. Время выполнения неудачных запросов также учитывается.
+     *
+     * @param query    SQL-запрос.
+     * @param call     выполнение запроса.
+     * @param rows     количество строк.
+     * @param returned {@code true}, если строки возвращены запросом, {@code false}, если изменены.
+     * @param <R>      тип результата.
+     * @return результат запроса.
+     */
+    private <R> R record(String query, Supplier<R> call, ToLongFunction<R> rows, boolean returned) {
+        QueryMeters queryMeters = this.meters.computeIfAbsent(query, this::register);
+
+        StorageQueryEvent event = new StorageQueryEvent();
+        event.begin();
+
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = call.get();
+        } finally {
+            queryMeters.timer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.end();
+        }
+
+        long rowCount = rows.applyAsLong(result);
+        (returned ? queryMeters.rowsReturned() : queryMeters.rowsAffected()).increment(rowCount);
+
+        if (event.shouldCommit()) {
+            event.query = queryMeters.name();
+            event.rows = rowCount;
+            event.commit();
+        }
+
+        return result;
+    }
+
+    /**
+     * Зарегистрировать метрики запроса.
+     *
+     * @param query SQL-запрос.
+     * @return метрики запроса.
+     */
+    private QueryMeters register(String query) {
+        String name = this.queryNames.getOrDefault(query, UNNAMED_QUERY);
+
+        return new QueryMeters(
+                name,
+                Timer.builder(QUERY_TIMER)
+                        .description("Время выполнения SQL-запроса")
+                        .tag("query", name)
+                        .publishPercentileHistogram()
+                        .register(this.registry),
+                Counter.builder(ROWS_RETURNED_COUNTER)
+                        .description("Количество строк, возвращённых SQL-запросом")
+                        .tag("query", name)
+                        .register(this.registry),
+                Counter.builder(ROWS_AFFECTED_COUNTER)
+                        .description("Количество строк, изменённых SQL-запросом")
+                        .tag("query", name)
+                        .register(this.registry));
+    }
+
+    // endregion
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import ru.yandex.practicum.filmorate.util.jfr.CacheAccessEvent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// endregion
+
+/**
+ * Кэш справочника в оперативной памяти: неизменяемый снимок всех элементов, упорядоченный по идентификатору.
+ * Каждая инвалидация увеличивает поколение кэша, а снимок хранит поколение, в котором началась его загрузка.
+ * Снимок прошлого поколения не используется, поэтому загрузка, начатая до инвалидации и завершившаяся после неё,
+ * не может вернуть в кэш устаревшие данные.
+ *
+ * @param <T> тип элементов справочника.
+ */
+final class ReferenceDataCache<T> {
+    /**
+     * Название кэша в событиях JFR.
+     */
+    private final String name;
+
+    /**
+     * Чтение всех элементов справочника из БД.
+     */
+    private final Supplier<Collection<T>> loader;
+
+    /**
+     * Получение идентификатора элемента.
+     */
+    private final Function<T, Long> idExtractor;
+
+    /**
+     * Текущее поколение кэша.
+     */
+    private final AtomicLong generation;
+
+    /**
+     * Последний загруженный снимок; {@code null}, если справочник ещё не загружался.
+     */
+    private final AtomicReference<Snapshot<T>> snapshot;
+
+    /**
+     * Конструктор.
+     *
+     * @param name        название кэша в событиях JFR.
+     * @param loader      чтение всех элементов справочника из БД.
+     * @param idExtractor получение идентификатора элемента.
+     */
+    ReferenceDataCache(String name, Supplier<Collection<T>> loader, Function<T, Long> idExtractor) {
+        this.name = name;
+        this.loader = loader;
+        this.idExtractor = idExtractor;
+        this.generation = new AtomicLong();
+        this.snapshot = new AtomicReference<>();
+    }
+
+    /**
+     * Получить актуальный снимок справочника, при необходимости загрузив его из БД.
+     *
+     * @return неизменяемый снимок справочника.
+     */
+    Map<Long, T> get() {
+        long currentGeneration = this.generation.get();
+        Snapshot<T> current = this.snapshot.get();
+        boolean hit = current != null && current.generation() == currentGeneration;
+        CacheAccessEvent.emit(this.name, hit);
+
+        return hit ? current.items() : this.load(currentGeneration);
+    }
+
+    /**
+     * Загрузить справочник из БД.
+     */
+    void load() {
+        this.load(this.generation.get());
+    }
+
+    /**
+     * Инвалидировать кэш. Справочник будет перечитан из БД при следующем обращении.
+     */
+    void invalidate() {
+        this.generation.incrementAndGet();
+    }
+
+    // region Facilities
+
+    /**
+     * Загрузить справочник из БД и опубликовать снимок, если более новый снимок ещё не опубликован.
+     *
+     * @param loadGeneration поколение кэша на момент начала загрузки.
+     * @return загруженный снимок справочника.
+     */
+    private Map<Long, T> load(long loadGeneration) {
+        Map<Long, T> items = new LinkedHashMap<>();
+        this.loader.get().forEach(item -> items.put(this.idExtractor.apply(item), item));
+
+        Snapshot<T> loaded = new Snapshot<>(loadGeneration, Collections.unmodifiableMap(items));
+        this.snapshot.accumulateAndGet(loaded, (current, candidate) ->
+                current != null && current.generation() >= candidate.generation() ? current : candidate);
+
+        return loaded.items();
+    }
+
+    // endregion
+
+    /**
+     * Снимок справочника.
+     *
+     * @param generation поколение кэша, в котором началась загрузка снимка.
+     * @param items      элементы справочника по идентификатору.
+     * @param <T>        тип элементов справочника.
+     */
+    private record Snapshot<T>(long generation, Map<Long, T> items) {
+    }
+}
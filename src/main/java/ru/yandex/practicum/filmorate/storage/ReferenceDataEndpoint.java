@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.FilmJsonCache;
+
+// endregion
+
+/**
+ * Эндпоинт {@code referencedata} для сброса кэшей справочников жанров и оценок Ассоциации кинокомпаний:
+ * {@code DELETE} инвалидирует оба кэша и кэш сериализованных фильмов, в которые входят названия жанров и оценок,
+ * и справочники перечитываются из БД при следующем обращении.
+ * Используется после изменения справочников в БД в обход приложения.
+ */
+@Component
+@Endpoint(id = "referencedata")
+@Slf4j
+public class ReferenceDataEndpoint {
+    /**
+     * Хранилище жанров с кэшированием справочника.
+     */
+    private final CachedGenreStorage genreStorage;
+
+    /**
+     * Хранилище оценок Ассоциации кинокомпаний с кэшированием справочника.
+     */
+    private final CachedMotionPictureAssociationStorage mpaStorage;
+
+    /**
+     * Кэш сериализованных фильмов.
+     */
+    private final FilmJsonCache filmJsonCache;
+
+    /**
+     * Конструктор.
+     *
+     * @param genreStorage  хранилище жанров с кэшированием справочника.
+     * @param mpaStorage    хранилище оценок Ассоциации кинокомпаний с кэшированием справочника.
+     * @param filmJsonCache кэш сериализованных фильмов.
+     */
+    public ReferenceDataEndpoint(CachedGenreStorage genreStorage, CachedMotionPictureAssociationStorage mpaStorage, FilmJsonCache filmJsonCache) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.filmJsonCache = filmJsonCache;
+    }
+
+    /**
+     * Инвалидировать кэши справочников и сериализованных фильмов.
+     */
+    @DeleteOperation
+    public void invalidate() {
+        log.info("Инвалидация кэшей справочников жанров и оценок Ассоциации кинокомпаний и сериализованных фильмов");
+        this.genreStorage.invalidate();
+        this.mpaStorage.invalidate();
+        this.filmJsonCache.invalidateAll();
+    }
+}
@@ -1,15 +1,26 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.UpdateEntityException;
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.abstractions.UserStorage;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Хранилище пользователей в БД.
@@ -31,36 +42,89 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
      */
     private static final String FIND_ALL_USERS_QUERY = "SELECT * FROM users";
 
+    /**
+     * SQL-запрос для получения страницы пользователей.
+     */
+    private static final String FIND_USERS_PAGE_QUERY = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+
     /**
      * SQL-запрос для получения пользователя по его идентификатору.
      */
     private static final String FIND_USER_BY_ID_QUERY = "SELECT * FROM users WHERE id = ?";
 
     /**
-     * SQL-запрос для получения пользователя по его e-mail.
+     * SQL-запрос для получения пользователей по их идентификаторам.
+     */
+    private static final String FIND_USERS_BY_IDS_QUERY = "SELECT * FROM users WHERE id = ANY(?) ORDER BY id";
+
+    /**
+     * SQL-запрос для получения существующих идентификаторов пользователей.
+     */
+    private static final String FIND_EXISTING_USER_IDS_QUERY = "SELECT id FROM users WHERE id = ANY(?)";
+
+    /**
+     * SQL-запрос для получения уже используемых e-mail.
      */
-    private static final String FIND_USER_BY_EMAIL_QUERY = "SELECT * FROM users WHERE email = ?";
+    private static final String FIND_USED_EMAILS_QUERY = "SELECT email FROM users WHERE email = ANY(?)";
+
+    /**
+     * SQL-запрос для проверки существования пользователя.
+     */
+    private static final String USER_EXISTS_QUERY = "SELECT COUNT(*) FROM users WHERE id = ?";
 
     /**
      * SQL-запрос для обновления пользователя.
      */
-    private static final String UPDATE_USER_QUERY = "UPDATE users SET login = ?, email = ?, name = ?, birthday = ? WHERE id = ?";
+    private static final String UPDATE_USER_QUERY = "UPDATE users SET login = ?, email = ?, name = ?, birthday = ?, version = version + 1 WHERE id = ?";
 
     /**
-     * SQL-запрос для добавления пользователя в друзья.
+     * SQL-запрос для добавления пользователя в друзья; если он уже добавлен, ничего не меняет.
      */
-    private static final String ADD_USER_FRIEND_QUERY = "INSERT INTO friends (left_user_id, right_user_id) VALUES (?, ?)";
+    private static final String ADD_USER_FRIEND_QUERY = "MERGE INTO friends f USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) v (left_user_id, right_user_id) "
+            + "ON f.left_user_id = v.left_user_id AND f.right_user_id = v.right_user_id "
+            + "WHEN NOT MATCHED THEN INSERT (left_user_id, right_user_id) VALUES (v.left_user_id, v.right_user_id)";
 
     /**
      * SQL-запрос для получения всех друзей пользователя.
      */
     private static final String GET_USER_FRIENDS_QUERY = "SELECT u.* FROM friends f JOIN users u ON u.id = f.right_user_id WHERE f.left_user_id = ?";
 
+    /**
+     * SQL-запрос для получения страницы друзей пользователя.
+     */
+    private static final String GET_USER_FRIENDS_PAGE_QUERY = "SELECT u.* FROM friends f JOIN users u ON u.id = f.right_user_id WHERE f.left_user_id = ? AND f.right_user_id > ? ORDER BY f.right_user_id LIMIT ?";
+
+    /**
+     * SQL-запрос для получения общих друзей двух пользователей.
+     */
+    private static final String GET_COMMON_FRIENDS_QUERY = "SELECT u.* FROM friends f1 JOIN friends f2 ON f2.right_user_id = f1.right_user_id JOIN users u ON u.id = f1.right_user_id WHERE f1.left_user_id = ? AND f2.left_user_id = ? ORDER BY u.id";
+
     /**
      * SQL-запрос для удаления пользователя из друзей.
      */
     private static final String DELETE_USER_FRIEND_QUERY = "DELETE FROM friends WHERE left_user_id = ? AND right_user_id = ?";
 
+    /**
+     * SQL-запрос для получения всех связей дружбы.
+     */
+    private static final String GET_ALL_FRIENDSHIPS_QUERY = "SELECT left_user_id, right_user_id FROM friends";
+
+    /**
+     * SQL-запрос для увеличения версии пользователя.
+     */
+    private static final String INCREMENT_USER_VERSION_QUERY = "UPDATE users SET version = version + 1 WHERE id = ?";
+
+    /**
+     * SQL-запрос для увеличения версий нескольких пользователей.
+     */
+    private static final String INCREMENT_USERS_VERSION_QUERY = "UPDATE users SET version = version + 1 WHERE id = ANY(?)";
+
+    /**
+     * SQL-запрос для получения версии списка друзей пользователя.
+     */
+    private static final String GET_FRIENDS_VERSION_QUERY = "SELECT u.version, COUNT(fu.id) AS count, COALESCE(SUM(fu.version), 0) AS items_version FROM users u "
+            + "LEFT JOIN friends f ON f.left_user_id = u.id LEFT JOIN users fu ON fu.id = f.right_user_id WHERE u.id = ? GROUP BY u.id, u.version";
+
     /**
      * Конструктор.
      *
@@ -79,12 +143,37 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
      */
     @Override
     public User create(User user) {
-        long id = this.insert(CREATE_NEW_USER_QUERY, user.getLogin(), user.getEmail(), user.getName(), user.getBirthday());
+        long id;
+        try {
+            id = this.insert(CREATE_NEW_USER_QUERY, user.getLogin(), user.getEmail(), user.getName(), user.getBirthday());
+        } catch (DuplicateKeyException ex) {
+            throw new UpdateEntityException("E-mail пользователя (" + user.getEmail() + ") уже используется");
+        }
 
         user.setId(id);
         return user;
     }
 
+    /**
+     * Создать несколько пользователей пакетным запросом.
+     *
+     * @param users пользователи.
+     * @return созданные пользователи.
+     */
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        List<Long> ids = this.batchInsert(CREATE_NEW_USER_QUERY, users.stream()
+                .map(u -> new Object[]{u.getLogin(), u.getEmail(), u.getName(), u.getBirthday()})
+                .toList());
+
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(ids.get(i));
+        }
+
+        return users;
+    }
+
     /**
      * Получить список всех пользователей.
      *
@@ -95,6 +184,28 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
         return this.findMany(FIND_ALL_USERS_QUERY);
     }
 
+    /**
+     * Получить страницу пользователей с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего пользователя предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница пользователей.
+     */
+    @Override
+    public Page<User> getPage(long afterId, int limit) {
+        return Page.of(this.findMany(FIND_USERS_PAGE_QUERY, afterId, limit + 1), limit, User::getId);
+    }
+
+    /**
+     * Последовательно передать всех пользователей в {@code consumer}, не загружая их в память целиком.
+     *
+     * @param consumer получатель.
+     */
+    @Override
+    public void streamAll(Consumer<User> consumer) {
+        this.stream(FIND_ALL_USERS_QUERY, STREAM_FETCH_SIZE, consumer);
+    }
+
     /**
      * Найти пользователя по его идентификатору.
      *
@@ -106,6 +217,21 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
         return this.findOne(FIND_USER_BY_ID_QUERY, userId);
     }
 
+    /**
+     * Найти пользователей по их идентификаторам.
+     *
+     * @param userIds идентификаторы пользователей.
+     * @return найденные пользователи.
+     */
+    @Override
+    public Collection<User> findByIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+
+        return this.findMany(FIND_USERS_BY_IDS_QUERY, (Object) userIds.toArray(Long[]::new));
+    }
+
     /**
      * Обновить пользователя.
      *
@@ -114,39 +240,45 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
      */
     @Override
     public User update(User user) {
-        Optional<User> oldUser = this.findOne(FIND_USER_BY_ID_QUERY, user.getId());
-        if (oldUser.isEmpty()) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", user.getId()));
+        int rowsUpdated;
+        try {
+            rowsUpdated = this.execute(UPDATE_USER_QUERY, user.getLogin(), user.getEmail(), user.getName(), user.getBirthday(), user.getId());
+        } catch (DuplicateKeyException ex) {
+            throw new UpdateEntityException("Новый e-mail пользователя (" + user.getEmail() + ") уже используется");
         }
 
-        Optional<User> anotherUserWithSameEmail = this.findOne(FIND_USER_BY_EMAIL_QUERY, user.getEmail());
-        if (anotherUserWithSameEmail.isPresent()) {
-            throw new UpdateEntityException("Новый e-mail пользователя (" + user.getEmail() + ") уже используется");
+        if (rowsUpdated == 0) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", user.getId()));
         }
 
-        this.update(UPDATE_USER_QUERY, user.getLogin(), user.getEmail(), user.getName(), user.getBirthday(), user.getId());
         return user;
     }
 
     /**
      * Добавить в друзья.
+     * Если та же дружба одновременно добавлена в другой транзакции, нарушение уникальности означает,
+     * что друг уже добавлен, и метод завершается без изменения версии пользователя.
      *
      * @param userId   идентификатор пользователя.
      * @param friendId идентификатор друга.
      */
     @Override
+    @Transactional
     public void addFriend(Long userId, Long friendId) {
-        Optional<User> user = this.findOne(FIND_USER_BY_ID_QUERY, userId);
-        if (user.isEmpty()) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        int rowsInserted;
+        try {
+            rowsInserted = this.execute(ADD_USER_FRIEND_QUERY, userId, friendId);
+        } catch (DuplicateKeyException ex) {
+            this.checkUsersExist(userId, friendId);
+            return;
+        } catch (DataIntegrityViolationException ex) {
+            this.checkUsersExist(userId, friendId);
+            throw ex;
         }
 
-        Optional<User> friend = this.findOne(FIND_USER_BY_ID_QUERY, friendId);
-        if (friend.isEmpty()) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", friendId));
+        if (rowsInserted > 0) {
+            this.update(INCREMENT_USER_VERSION_QUERY, userId);
         }
-
-        this.insert(ADD_USER_FRIEND_QUERY, userId, friendId);
     }
 
     /**
@@ -165,8 +297,27 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
         return this.findMany(GET_USER_FRIENDS_QUERY, userId);
     }
 
+    /**
+     * Получить страницу друзей пользователя с идентификатором больше {@code afterId}.
+     *
+     * @param userId  идентификатор пользователя.
+     * @param afterId идентификатор последнего друга предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница друзей пользователя.
+     */
+    @Override
+    public Page<User> getFriendsPage(Long userId, long afterId, int limit) {
+        Optional<User> user = this.findOne(FIND_USER_BY_ID_QUERY, userId);
+        if (user.isEmpty()) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        }
+
+        return Page.of(this.findMany(GET_USER_FRIENDS_PAGE_QUERY, userId, afterId, limit + 1), limit, User::getId);
+    }
+
     /**
      * Получить общих друзей двух пользователей.
+     * Пересечение вычисляется в БД одним запросом; существование пользователей проверяется, только если общих друзей нет.
      *
      * @param userId      идентификатор пользователя.
      * @param otherUserId идентификатор другого пользователя.
@@ -174,10 +325,14 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
      */
     @Override
     public Collection<User> getCommonFriends(Long userId, Long otherUserId) {
-        Collection<User> userFriends = this.getFriends(userId);
-        Collection<User> otherUserFriends = this.getFriends(otherUserId);
+        Collection<User> commonFriends = this.findMany(GET_COMMON_FRIENDS_QUERY, userId, otherUserId);
+        if (!commonFriends.isEmpty()) {
+            return commonFriends;
+        }
+
+        this.checkUsersExist(userId, otherUserId);
 
-        return userFriends.stream().filter(uf -> otherUserFriends.stream().anyMatch(ouf -> ouf.getId().equals(uf.getId()))).toList();
+        return commonFriends;
     }
 
     /**
@@ -187,17 +342,103 @@ public class UserDbStorage extends BaseDbStorage<User> implements UserStorage {
      * @param friendId идентификатор друга.
      */
     @Override
+    @Transactional
     public void removeFriend(Long userId, Long friendId) {
-        Optional<User> user = this.findOne(FIND_USER_BY_ID_QUERY, userId);
-        if (user.isEmpty()) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        if (this.delete(DELETE_USER_FRIEND_QUERY, userId, friendId) > 0) {
+            this.update(INCREMENT_USER_VERSION_QUERY, userId);
+        } else {
+            this.checkUsersExist(userId, friendId);
+        }
+    }
+
+    /**
+     * Добавить несколько связей дружбы пакетным запросом. Уже существующие связи не дублируются,
+     * версии всех пользователей, которым добавлялись друзья, увеличиваются.
+     *
+     * @param friendships связи дружбы.
+     */
+    @Override
+    @Transactional
+    public void addFriends(Collection<Friendship> friendships) {
+        if (friendships.isEmpty()) {
+            return;
         }
 
-        Optional<User> friend = this.findOne(FIND_USER_BY_ID_QUERY, friendId);
-        if (friend.isEmpty()) {
-            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", friendId));
+        this.batchUpdate(ADD_USER_FRIEND_QUERY, friendships.stream().map(f -> new Object[]{f.getUserId(), f.getFriendId()}).toList());
+        this.execute(INCREMENT_USERS_VERSION_QUERY, (Object) friendships.stream().map(Friendship::getUserId).distinct().toArray(Long[]::new));
+    }
+
+    /**
+     * Получить идентификаторы существующих пользователей из указанных.
+     *
+     * @param userIds идентификаторы пользователей.
+     * @return идентификаторы существующих пользователей.
+     */
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
         }
 
-        this.delete(DELETE_USER_FRIEND_QUERY, userId, friendId);
+        return new HashSet<>(this.findIds(FIND_EXISTING_USER_IDS_QUERY, (Object) userIds.toArray(Long[]::new)));
     }
+
+    /**
+     * Получить уже используемые e-mail из указанных.
+     *
+     * @param emails адреса электронной почты.
+     * @return используемые адреса электронной почты.
+     */
+    @Override
+    public Set<String> findUsedEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+
+        return new HashSet<>(this.findColumn(FIND_USED_EMAILS_QUERY, String.class, (Object) emails.toArray(String[]::new)));
+    }
+
+    /**
+     * Последовательно передать все связи дружбы в {@code consumer}.
+     *
+     * @param consumer получатель пары (идентификатор пользователя, идентификатор друга).
+     */
+    @Override
+    public void forEachFriendship(BiConsumer<Long, Long> consumer) {
+        this.forEachRow(GET_ALL_FRIENDSHIPS_QUERY, 0, resultSet ->
+                consumer.accept(resultSet.getLong("left_user_id"), resultSet.getLong("right_user_id")));
+    }
+
+    /**
+     * Получить версию списка друзей пользователя, не загружая самих друзей.
+     *
+     * @param userId идентификатор пользователя.
+     * @return версия списка друзей или пустое значение, если пользователь не найден.
+     */
+    @Override
+    public Optional<CollectionVersion> getFriendsVersion(Long userId) {
+        return this.findValue(GET_FRIENDS_VERSION_QUERY, (resultSet, rowNum) ->
+                new CollectionVersion(resultSet.getLong("version"), resultSet.getLong("count"), resultSet.getLong("items_version")), userId);
+    }
+
+    // region Facilities
+
+    /**
+     * Проверить, что оба пользователя существуют.
+     * Вызывается только после неудачной или ничего не изменившей записи, чтобы определить, на какого пользователя указывает ошибка.
+     *
+     * @param userId      идентификатор пользователя.
+     * @param otherUserId идентификатор другого пользователя.
+     */
+    private void checkUsersExist(Long userId, Long otherUserId) {
+        if (!this.exists(USER_EXISTS_QUERY, userId)) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", userId));
+        }
+
+        if (!this.exists(USER_EXISTS_QUERY, otherUserId)) {
+            throw new NotFoundException(String.format("Пользователь с идентификатором %d не найден", otherUserId));
+        }
+    }
+
+    // endregion
 }
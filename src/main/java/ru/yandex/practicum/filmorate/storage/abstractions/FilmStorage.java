@@ -2,10 +2,17 @@ package ru.yandex.practicum.filmorate.storage.abstractions;
 
 // region imports
 
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.Page;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 // endregion
 
@@ -21,6 +28,14 @@ public interface FilmStorage {
      */
     Film create(Film film);
 
+    /**
+     * Создать несколько фильмов.
+     *
+     * @param films фильмы.
+     * @return созданные фильмы в том же порядке.
+     */
+    List<Film> createAll(List<Film> films);
+
     /**
      * Получить список всех фильмов.
      *
@@ -28,6 +43,22 @@ public interface FilmStorage {
      */
     Collection<Film> getAll();
 
+    /**
+     * Получить страницу фильмов с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего фильма предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница фильмов.
+     */
+    Page<Film> getPage(long afterId, int limit);
+
+    /**
+     * Последовательно передать все фильмы в {@code consumer}, не загружая их в память целиком.
+     *
+     * @param consumer получатель.
+     */
+    void streamAll(Consumer<Film> consumer);
+
     /**
      * Получить фильм по его идентификатору.
      *
@@ -36,6 +67,14 @@ public interface FilmStorage {
      */
     Optional<Film> getFilmById(long filmId);
 
+    /**
+     * Получить фильмы по их идентификаторам.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return найденные фильмы.
+     */
+    Collection<Film> getFilmsByIds(Collection<Long> filmIds);
+
     /**
      * Обновить фильм.
      *
@@ -60,6 +99,28 @@ public interface FilmStorage {
      */
     void removeLike(Long filmId, Long userId);
 
+    /**
+     * Поставить несколько лайков. Уже существующие лайки не дублируются.
+     *
+     * @param likes лайки.
+     */
+    void addLikes(Collection<Like> likes);
+
+    /**
+     * Удалить несколько лайков. Отсутствующие лайки пропускаются.
+     *
+     * @param likes лайки.
+     */
+    void removeLikes(Collection<Like> likes);
+
+    /**
+     * Получить идентификаторы существующих фильмов из указанных.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return идентификаторы существующих фильмов.
+     */
+    Set<Long> getExistingIds(Collection<Long> filmIds);
+
     /**
      * Получить {@code count} популярных фильмов.
      *
@@ -67,4 +128,26 @@ public interface FilmStorage {
      * @return {@code count} популярных фильмов.
      */
     Collection<Film> getPopularFilms(Long count);
+
+    /**
+     * Последовательно передать все пользовательские лайки в {@code consumer}.
+     *
+     * @param consumer получатель пары (идентификатор фильма, идентификатор пользователя).
+     */
+    void forEachLike(BiConsumer<Long, Long> consumer);
+
+    /**
+     * Получить версию фильма, не загружая сам фильм.
+     *
+     * @param filmId идентификатор фильма.
+     * @return версия фильма или пустое значение, если фильм не найден.
+     */
+    Optional<Long> getFilmVersion(long filmId);
+
+    /**
+     * Получить версию коллекции всех фильмов.
+     *
+     * @return версия коллекции фильмов.
+     */
+    CollectionVersion getFilmsVersion();
 }
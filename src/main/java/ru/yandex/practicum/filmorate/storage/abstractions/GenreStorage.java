@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.abstractions;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -31,4 +32,12 @@ public interface GenreStorage {
      * @return список жанров.
      */
     Collection<Genre> getGenresByFilmId(long filmId);
+
+    /**
+     * Получить жанры сразу для нескольких фильмов.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return жанры, сгруппированные по идентификатору фильма.
+     */
+    Map<Long, Collection<Genre>> getGenresByFilmIds(Collection<Long> filmIds);
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.abstractions;
 import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -31,4 +32,12 @@ public interface MotionPictureAssociationStorage {
      * @return оценка Ассоциации кинокомпаний.
      */
     Optional<MotionPictureAssociation> getMpaByFilmId(long filmId);
+
+    /**
+     * Получить оценки Ассоциации кинокомпаний сразу для нескольких фильмов.
+     *
+     * @param filmIds идентификаторы фильмов.
+     * @return оценки Ассоциации кинокомпаний по идентификатору фильма.
+     */
+    Map<Long, MotionPictureAssociation> getMpaByFilmIds(Collection<Long> filmIds);
 }
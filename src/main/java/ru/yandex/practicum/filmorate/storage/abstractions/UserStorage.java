@@ -2,10 +2,17 @@ package ru.yandex.practicum.filmorate.storage.abstractions;
 
 // region imports
 
+import ru.yandex.practicum.filmorate.model.CollectionVersion;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 // endregion
 
@@ -21,6 +28,14 @@ public interface UserStorage {
      */
     User create(User user);
 
+    /**
+     * Создать несколько пользователей.
+     *
+     * @param users пользователи.
+     * @return созданные пользователи в том же порядке.
+     */
+    List<User> createAll(List<User> users);
+
     /**
      * Получить список всех пользователей.
      *
@@ -28,6 +43,22 @@ public interface UserStorage {
      */
     Collection<User> getAll();
 
+    /**
+     * Получить страницу пользователей с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последнего пользователя предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница пользователей.
+     */
+    Page<User> getPage(long afterId, int limit);
+
+    /**
+     * Последовательно передать всех пользователей в {@code consumer}, не загружая их в память целиком.
+     *
+     * @param consumer получатель.
+     */
+    void streamAll(Consumer<User> consumer);
+
     /**
      * Найти пользователя по его идентификатору.
      *
@@ -36,6 +67,30 @@ public interface UserStorage {
      */
     Optional<User> findById(Long userId);
 
+    /**
+     * Найти пользователей по их идентификаторам.
+     *
+     * @param userIds идентификаторы пользователей.
+     * @return найденные пользователи.
+     */
+    Collection<User> findByIds(Collection<Long> userIds);
+
+    /**
+     * Получить идентификаторы существующих пользователей из указанных.
+     *
+     * @param userIds идентификаторы пользователей.
+     * @return идентификаторы существующих пользователей.
+     */
+    Set<Long> findExistingIds(Collection<Long> userIds);
+
+    /**
+     * Получить уже используемые e-mail из указанных.
+     *
+     * @param emails адреса электронной почты.
+     * @return используемые адреса электронной почты.
+     */
+    Set<String> findUsedEmails(Collection<String> emails);
+
     /**
      * Обновить пользователя.
      *
@@ -52,6 +107,13 @@ public interface UserStorage {
      */
     void addFriend(Long userId, Long friendId);
 
+    /**
+     * Добавить несколько связей дружбы. Уже существующие связи не дублируются.
+     *
+     * @param friendships связи дружбы.
+     */
+    void addFriends(Collection<Friendship> friendships);
+
     /**
      * Получить друзей пользователя.
      *
@@ -60,6 +122,16 @@ public interface UserStorage {
      */
     Collection<User> getFriends(Long userId);
 
+    /**
+     * Получить страницу друзей пользователя с идентификатором больше {@code afterId}.
+     *
+     * @param userId  идентификатор пользователя.
+     * @param afterId идентификатор последнего друга предыдущей страницы.
+     * @param limit   размер страницы.
+     * @return страница друзей пользователя.
+     */
+    Page<User> getFriendsPage(Long userId, long afterId, int limit);
+
     /**
      * Получить общих друзей двух пользователей.
      *
@@ -76,4 +148,19 @@ public interface UserStorage {
      * @param friendId идентификатор друга.
      */
     void removeFriend(Long userId, Long friendId);
+
+    /**
+     * Последовательно передать все связи дружбы в {@code consumer}.
+     *
+     * @param consumer получатель пары (идентификатор пользователя, идентификатор друга).
+     */
+    void forEachFriendship(BiConsumer<Long, Long> consumer);
+
+    /**
+     * Получить версию списка друзей пользователя, не загружая самих друзей.
+     *
+     * @param userId идентификатор пользователя.
+     * @return версия списка друзей или пустое значение, если пользователь не найден.
+     */
+    Optional<CollectionVersion> getFriendsVersion(Long userId);
 }
@@ -22,6 +22,7 @@ public final class FilmRowMapper implements RowMapper<Film> {
         film.setDescription(resultSet.getString("description"));
         film.setReleaseDate(resultSet.getDate("release_date").toLocalDate());
         film.setDuration(Duration.ofSeconds(resultSet.getInt("duration")));
+        film.setVersion(resultSet.getLong("version"));
 
         return film;
     }
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.util.jfr;
+
+// region imports
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// endregion
+
+/**
+ * Событие JFR: обращение к кэшу.
+ */
+@Name("filmorate.CacheAccess")
+@Label("Cache Access")
+@Description("Попадание или промах кэша")
+@Category({"Filmorate", "Cache"})
+@StackTrace(false)
+public class CacheAccessEvent extends jdk.jfr.Event {
+    /**
+     * Кэш.
+     */
+    @Label("Cache")
+    public String cache;
+
+    /**
+     * Признак попадания в кэш.
+     */
+    @Label("Hit")
+    public boolean hit;
+
+    /**
+     * Записать обращение к кэшу, если событие включено в текущей записи JFR.
+     *
+     * @param cache кэш.
+     * @param hit   признак попадания в кэш.
+     */
+    public static void emit(String cache, boolean hit) {
+        CacheAccessEvent event = new CacheAccessEvent();
+        if (event.isEnabled()) {
+            event.cache = cache;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+}
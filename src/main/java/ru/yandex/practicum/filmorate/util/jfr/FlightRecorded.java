@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.util.jfr;
+
+// region imports
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// endregion
+
+/**
+ * Отметка сервиса, публичные операции которого записываются событиями {@link ServiceOperationEvent}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface FlightRecorded {
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.util.jfr;
+
+// region imports
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+// endregion
+
+/**
+ * Запись операций сервисов, отмеченных {@link FlightRecorded}, событиями JFR.
+ * Пока событие не включено в активной записи JFR, перехватчик только вызывает метод сервиса.
+ */
+@Configuration(proxyBeanMethods = false)
+public class FlightRecorderConfiguration {
+    /**
+     * Советник, оборачивающий вызовы публичных методов сервисов в {@link ServiceOperationEvent}.
+     *
+     * @return советник.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceOperationEventAdvisor() {
+        MethodInterceptor interceptor = invocation -> {
+            ServiceOperationEvent event = new ServiceOperationEvent();
+            if (!event.isEnabled()) {
+                return invocation.proceed();
+            }
+
+            event.begin();
+            try {
+                return invocation.proceed();
+            } catch (Throwable ex) {
+                event.failed = true;
+                throw ex;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.service = invocation.getMethod().getDeclaringClass().getSimpleName();
+                    event.operation = invocation.getMethod().getName();
+                    event.commit();
+                }
+            }
+        };
+
+        return new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(FlightRecorded.class, true), interceptor);
+    }
+}
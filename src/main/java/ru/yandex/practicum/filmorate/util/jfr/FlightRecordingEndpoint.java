@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.util.jfr;
+
+// region imports
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// endregion
+
+/**
+ * Эндпоинт {@code jfr} для управления ограниченной записью JFR:
+ * {@code start} начинает запись, {@code stop} останавливает её, {@code status} возвращает состояние.
+ * Запись использует настройки JFR {@code default}, ограничена по длительности, возрасту и размеру данных
+ * и по остановке сохраняется в файл в каталоге {@code filmorate.jfr.directory}.
+ * Включается свойством {@code filmorate.jfr.enabled=true}.
+ */
+@Component
+@Endpoint(id = "jfr")
+@ConditionalOnProperty(name = "filmorate.jfr.enabled", havingValue = "true")
+@Slf4j
+public class FlightRecordingEndpoint {
+    /**
+     * Формат времени в имени файла записи.
+     */
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Каталог файлов записи.
+     */
+    private final Path directory;
+
+    /**
+     * Максимальная длительность записи.
+     */
+    private final Duration maxDuration;
+
+    /**
+     * Максимальный размер данных записи.
+     */
+    private final DataSize maxSize;
+
+    /**
+     * Блокировка, исключающая одновременное управление записью.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Текущая или последняя запись.
+     */
+    private Recording recording;
+
+    /**
+     * Конструктор.
+     *
+     * @param directory   каталог файлов записи.
+     * @param maxDuration максимальная длительность записи.
+     * @param maxSize     максимальный размер данных записи.
+     */
+    public FlightRecordingEndpoint(@Value("${filmorate.jfr.directory:./jfr}") Path directory,
+                                   @Value("${filmorate.jfr.max-duration:10m}") Duration maxDuration,
+                                   @Value("${filmorate.jfr.max-size:100MB}") DataSize maxSize) {
+        this.directory = directory;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Получить состояние записи.
+     *
+     * @return состояние записи.
+     */
+    @ReadOperation
+    public Map<String, Object> status() {
+        this.lock.lock();
+        try {
+            return this.describe();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Начать запись. Если запись уже идёт, она продолжается.
+     *
+     * @return состояние записи.
+     */
+    @WriteOperation
+    public Map<String, Object> start() throws IOException, ParseException {
+        this.lock.lock();
+        try {
+            if (this.recording != null && this.recording.getState() == RecordingState.RUNNING) {
+                return this.describe();
+            }
+
+            if (this.recording != null) {
+                this.recording.close();
+            }
+
+            Files.createDirectories(this.directory);
+
+            Recording newRecording = new Recording(Configuration.getConfiguration("default"));
+            newRecording.setName("filmorate");
+            newRecording.enable(StorageQueryEvent.class);
+            newRecording.enable(ServiceOperationEvent.class);
+            newRecording.enable(CacheAccessEvent.class);
+            newRecording.setDuration(this.maxDuration);
+            newRecording.setMaxAge(this.maxDuration);
+            newRecording.setMaxSize(this.maxSize.toBytes());
+            newRecording.setToDisk(true);
+            newRecording.setDestination(this.directory.resolve("filmorate-" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".jfr"));
+            newRecording.start();
+
+            this.recording = newRecording;
+            log.info("Запись JFR начата, файл записи: {}", newRecording.getDestination());
+
+            return this.describe();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Остановить запись и сохранить её в файл.
+     *
+     * @return состояние записи.
+     */
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        this.lock.lock();
+        try {
+            if (this.recording != null && this.recording.getState() == RecordingState.RUNNING) {
+                this.recording.stop();
+                log.info("Запись JFR остановлена, файл записи: {}", this.recording.getDestination());
+            }
+
+            return this.describe();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // region Facilities
+
+    /**
+     * Описать состояние записи.
+     *
+     * @return состояние записи и путь к её файлу.
+     */
+    private Map<String, Object> describe() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (this.recording == null) {
+            status.put("state", "NEW");
+            return status;
+        }
+
+        status.put("state", this.recording.getState().name());
+        status.put("file", String.valueOf(this.recording.getDestination()));
+        return status;
+    }
+
+    // endregion
+}
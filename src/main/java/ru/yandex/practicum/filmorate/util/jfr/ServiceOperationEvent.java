@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.util.jfr;
+
+// region imports
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// endregion
+
+/**
+ * Событие JFR: выполнение операции сервиса, отмеченного {@link FlightRecorded}.
+ */
+@Name("filmorate.ServiceOperation")
+@Label("Service Operation")
+@Description("Выполнение операции сервиса")
+@Category({"Filmorate", "Service"})
+@StackTrace(false)
+public class ServiceOperationEvent extends jdk.jfr.Event {
+    /**
+     * Сервис.
+     */
+    @Label("Service")
+    public String service;
+
+    /**
+     * Операция сервиса.
+     */
+    @Label("Operation")
+    public String operation;
+
+    /**
+     * Признак завершения операции исключением.
+     */
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.util.jfr;
+
+// region imports
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// endregion
+
+/**
+ * Событие JFR: выполнение SQL-запроса хранилища.
+ */
+@Name("filmorate.StorageQuery")
+@Label("Storage Query")
+@Description("Выполнение SQL-запроса хранилища")
+@Category({"Filmorate", "Storage"})
+@StackTrace(false)
+public class StorageQueryEvent extends jdk.jfr.Event {
+    /**
+     * Имя запроса, например {@code FilmDbStorage.GET_POPULAR_FILMS_QUERY}.
+     */
+    @Label("Query")
+    public String query;
+
+    /**
+     * Количество возвращённых или изменённых строк.
+     */
+    @Label("Rows")
+    public long rows;
+}
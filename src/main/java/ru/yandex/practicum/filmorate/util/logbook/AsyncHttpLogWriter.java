@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.util.logbook;
+
+// region imports
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// endregion
+
+/**
+ * Асинхронная запись журнала HTTP-запросов.
+ * Сформированные Logbook записи помещаются в ограниченную очередь и передаются исходному {@link HttpLogWriter}
+ * в отдельном потоке. Если очередь заполнена, запись отбрасывается без ожидания и учитывается метрикой
+ * {@value #DROPPED_COUNTER}: поток запроса никогда не блокируется на записи журнала.
+ */
+@Slf4j
+public class AsyncHttpLogWriter implements HttpLogWriter, AutoCloseable {
+    /**
+     * Название метрики отброшенных записей.
+     */
+    static final String DROPPED_COUNTER = "filmorate.logbook.dropped";
+
+    /**
+     * Название метрики количества записей в очереди.
+     */
+    static final String QUEUE_GAUGE = "filmorate.logbook.queue.size";
+
+    /**
+     * Исходная запись журнала.
+     */
+    private final HttpLogWriter writer;
+
+    /**
+     * Поток записи с ограниченной очередью.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Счётчик отброшенных записей.
+     */
+    private final Counter dropped;
+
+    /**
+     * Конструктор.
+     *
+     * @param writer   исходная запись журнала.
+     * @param capacity максимальное количество записей в очереди.
+     * @param registry реестр метрик.
+     */
+    public AsyncHttpLogWriter(HttpLogWriter writer, int capacity, MeterRegistry registry) {
+        this.writer = writer;
+        this.dropped = Counter.builder(DROPPED_COUNTER)
+                .description("Количество записей журнала HTTP-запросов, отброшенных из-за переполнения очереди")
+                .register(registry);
+
+        ArrayBlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue,
+                Thread.ofPlatform().name("logbook-writer").daemon().factory(),
+                (task, executor) -> this.dropped.increment());
+
+        Gauge.builder(QUEUE_GAUGE, queue, ArrayBlockingQueue::size)
+                .description("Количество записей журнала HTTP-запросов, ожидающих записи")
+                .register(registry);
+    }
+
+    @Override
+    public boolean isActive() {
+        return this.writer.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        this.executor.execute(() -> this.writeSafely(() -> this.writer.write(precorrelation, request)));
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        this.executor.execute(() -> this.writeSafely(() -> this.writer.write(correlation, response)));
+    }
+
+    /**
+     * Остановить приём записей и дождаться записи очереди.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Запись журнала HTTP-запросов не завершилась за отведённое время");
+        }
+    }
+
+    // region Facilities
+
+    /**
+     * Выполнить запись, не пробрасывая ошибки в поток записи.
+     *
+     * @param write запись.
+     */
+    private void writeSafely(Write write) {
+        try {
+            write.run();
+        } catch (IOException | RuntimeException ex) {
+            log.error("Не удалось записать журнал HTTP-запроса", ex);
+        }
+    }
+
+    /**
+     * Запись в исходный {@link HttpLogWriter}.
+     */
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+
+    // endregion
+}
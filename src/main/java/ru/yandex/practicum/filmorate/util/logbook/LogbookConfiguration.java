@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.util.logbook;
+
+// region imports
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+
+import java.util.function.Predicate;
+
+// endregion
+
+/**
+ * Настройка Logbook для снижения стоимости логирования HTTP-запросов: выборка запросов
+ * ({@code filmorate.logbook.sample-rate}) и асинхронная запись с ограниченной очередью
+ * ({@code filmorate.logbook.async.enabled=true}).
+ */
+@Configuration(proxyBeanMethods = false)
+public class LogbookConfiguration {
+    /**
+     * Условие логирования с выборкой, заменяющее условие Logbook по включениям и исключениям путей.
+     *
+     * @param requestCondition условие Logbook по включениям и исключениям путей из настроек {@code logbook.predicate}.
+     * @param sampleRate       доля логируемых запросов от {@code 0} до {@code 1}.
+     * @return условие логирования.
+     */
+    @Bean
+    @Primary
+    public Predicate<HttpRequest> sampledRequestCondition(@Qualifier("requestCondition") Predicate<HttpRequest> requestCondition,
+                                                          @Value("${filmorate.logbook.sample-rate:1.0}") double sampleRate) {
+        return sampleRate >= 1 ? requestCondition : new SamplingRequestCondition(requestCondition, sampleRate);
+    }
+
+    /**
+     * Асинхронная запись журнала, заменяющая синхронную запись Logbook.
+     *
+     * @param capacity максимальное количество записей в очереди.
+     * @param registry реестр метрик.
+     * @return запись журнала.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "filmorate.logbook.async.enabled", havingValue = "true")
+    public HttpLogWriter asyncHttpLogWriter(@Value("${filmorate.logbook.async.capacity:10000}") int capacity, MeterRegistry registry) {
+        return new AsyncHttpLogWriter(new DefaultHttpLogWriter(), capacity, registry);
+    }
+}
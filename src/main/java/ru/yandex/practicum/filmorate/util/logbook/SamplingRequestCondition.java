@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.util.logbook;
+
+// region imports
+
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+// endregion
+
+/**
+ * Условие логирования, пропускающее в журнал случайную долю запросов.
+ * Сначала проверяется исходное условие (включения и исключения путей из настроек Logbook), затем запрос
+ * попадает в выборку с вероятностью {@code sampleRate}. Запросы вне выборки Logbook не буферизует и не форматирует.
+ */
+public class SamplingRequestCondition implements Predicate<HttpRequest> {
+    /**
+     * Исходное условие логирования.
+     */
+    private final Predicate<HttpRequest> condition;
+
+    /**
+     * Доля логируемых запросов от {@code 0} до {@code 1}.
+     */
+    private final double sampleRate;
+
+    /**
+     * Конструктор.
+     *
+     * @param condition  исходное условие логирования.
+     * @param sampleRate доля логируемых запросов от {@code 0} до {@code 1}.
+     */
+    public SamplingRequestCondition(Predicate<HttpRequest> condition, double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException(String.format("Доля логируемых запросов должна быть от 0 до 1, задано %s", sampleRate));
+        }
+
+        this.condition = condition;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        return this.condition.test(request) && ThreadLocalRandom.current().nextDouble() < this.sampleRate;
+    }
+}
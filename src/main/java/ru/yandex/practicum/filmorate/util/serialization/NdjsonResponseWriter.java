@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.util.serialization;
+
+// region imports
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+// endregion
+
+/**
+ * Формирование потоковых ответов в формате NDJSON (один JSON-объект на строку).
+ * Каждый объект сериализуется и отправляется клиенту сразу после получения, без накопления всей коллекции в памяти.
+ */
+@Component
+public class NdjsonResponseWriter {
+    /**
+     * Сериализатор, записывающий объекты через перевод строки.
+     */
+    private final ObjectWriter objectWriter;
+
+    /**
+     * Конструктор.
+     *
+     * @param objectMapper преобразователь JSON приложения.
+     */
+    public NdjsonResponseWriter(ObjectMapper objectMapper) {
+        this.objectWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+    }
+
+    /**
+     * Сформировать потоковый ответ.
+     *
+     * @param source источник, передающий объекты в полученный им {@link Consumer}.
+     * @param <T>    тип объектов.
+     * @return потоковый ответ.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter sequenceWriter = this.objectWriter.writeValues(outputStream)) {
+                source.accept(value -> {
+                    try {
+                        sequenceWriter.write(value);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+            outputStream.write('\n');
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
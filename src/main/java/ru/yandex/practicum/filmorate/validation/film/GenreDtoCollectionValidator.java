@@ -6,7 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import ru.yandex.practicum.filmorate.dto.GenreDto;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.CachedGenreStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.GenreStorage;
 import ru.yandex.practicum.filmorate.validation.film.constraint.GenreDtoCollectionConstraint;
 
@@ -17,7 +17,7 @@ import java.util.Set;
 
 public class GenreDtoCollectionValidator implements ConstraintValidator<GenreDtoCollectionConstraint, Collection<GenreDto>> {
     @Autowired
-    @Qualifier(GenreDbStorage.CLASS_NAME)
+    @Qualifier(CachedGenreStorage.CLASS_NAME)
     private GenreStorage genreStorage;
 
     @Override
@@ -5,13 +5,13 @@ import jakarta.validation.ConstraintValidatorContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import ru.yandex.practicum.filmorate.dto.MotionPictureAssociationDto;
-import ru.yandex.practicum.filmorate.storage.MotionPictureAssociationDbStorage;
+import ru.yandex.practicum.filmorate.storage.CachedMotionPictureAssociationStorage;
 import ru.yandex.practicum.filmorate.storage.abstractions.MotionPictureAssociationStorage;
 import ru.yandex.practicum.filmorate.validation.film.constraint.MotionPictureAssociationDtoConstraint;
 
 public class MotionPictureAssociationDtoValidator implements ConstraintValidator<MotionPictureAssociationDtoConstraint, MotionPictureAssociationDto> {
     @Autowired
-    @Qualifier(MotionPictureAssociationDbStorage.CLASS_NAME)
+    @Qualifier(CachedMotionPictureAssociationStorage.CLASS_NAME)
     private MotionPictureAssociationStorage mpaStorage;
 
     @Override
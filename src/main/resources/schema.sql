@@ -1,3 +1,8 @@
+CREATE TABLE IF NOT EXISTS schema_migrations (
+    name VARCHAR PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     login VARCHAR NOT NULL,
@@ -7,6 +12,8 @@ CREATE TABLE IF NOT EXISTS users (
     UNIQUE(email)
 );
 
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS friends (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     left_user_id BIGINT NOT NULL REFERENCES users(id),
@@ -15,6 +22,8 @@ CREATE TABLE IF NOT EXISTS friends (
     UNIQUE(left_user_id, right_user_id)
 );
 
+CREATE INDEX IF NOT EXISTS friends_right_user_id_idx ON friends (right_user_id);
+
 CREATE TABLE IF NOT EXISTS genres (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     name VARCHAR NOT NULL
@@ -32,9 +41,15 @@ CREATE TABLE IF NOT EXISTS films (
     description VARCHAR(200) NULL,
     release_date DATE NOT NULL,
     duration INTEGER NOT NULL,
-    mpa_id BIGINT NOT NULL REFERENCES mpa(id)
+    mpa_id BIGINT NOT NULL REFERENCES mpa(id),
+    likes_count BIGINT NOT NULL DEFAULT 0
 );
 
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count BIGINT NOT NULL DEFAULT 0;
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, id);
+CREATE INDEX IF NOT EXISTS films_mpa_id_idx ON films (mpa_id);
+ALTER TABLE films ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS film_genres (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     film_id BIGINT NOT NULL REFERENCES films(id),
@@ -42,6 +57,8 @@ CREATE TABLE IF NOT EXISTS film_genres (
     UNIQUE(film_id, genre_id)
 );
 
+CREATE INDEX IF NOT EXISTS film_genres_genre_id_idx ON film_genres (genre_id);
+
 CREATE TABLE IF NOT EXISTS film_likes (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     film_id BIGINT REFERENCES films(id) NOT NULL,
@@ -49,3 +66,4 @@ CREATE TABLE IF NOT EXISTS film_likes (
     UNIQUE(film_id, user_id)
 );
 
+CREATE INDEX IF NOT EXISTS film_likes_user_id_idx ON film_likes (user_id);
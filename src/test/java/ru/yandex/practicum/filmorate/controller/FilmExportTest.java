@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.controller;
+
+// region imports
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// endregion
+
+/**
+ * Одновременные выгрузки фильмов: каждая выгрузка должна занимать одно соединение с БД, поэтому выгрузок
+ * больше, чем соединений в пуле, завершаются без ожидания соединения до истечения времени ожидания.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:film-export;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=" + FilmExportTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+class FilmExportTest {
+    /**
+     * Количество соединений в пуле.
+     */
+    static final int POOL_SIZE = 2;
+
+    /**
+     * Количество фильмов: больше порции дополнения справочными данными, чтобы оно выполнялось во время чтения.
+     */
+    private static final int FILMS = 1200;
+
+    /**
+     * Количество одновременных выгрузок.
+     */
+    private static final int EXPORTS = POOL_SIZE * 3;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FilmService filmService;
+
+    private long expectedFilms;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = this.filmService.getAll().size(); i < FILMS; i++) {
+            this.createFilm(i);
+        }
+        this.expectedFilms = this.filmService.getAll().size();
+    }
+
+    @Test
+    void concurrentExportsDoNotExhaustConnectionPool() {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + "/films/export"))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+
+        List<CompletableFuture<HttpResponse<String>>> exports = new ArrayList<>();
+        for (int i = 0; i < EXPORTS; i++) {
+            exports.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        for (CompletableFuture<HttpResponse<String>> export : exports) {
+            HttpResponse<String> response = export.join();
+
+            assertEquals(200, response.statusCode());
+            assertEquals(this.expectedFilms, response.body().lines().filter(line -> !line.isBlank()).count());
+        }
+    }
+
+    // region Facilities
+
+    private void createFilm(int index) {
+        MotionPictureAssociation mpa = new MotionPictureAssociation();
+        mpa.setId(1L);
+
+        Genre genre = new Genre();
+        genre.setId((long) (index % 6 + 1));
+
+        Film film = new Film();
+        film.setName("Фильм " + index);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(Duration.ofMinutes(120));
+        film.setMpa(mpa);
+        film.setGenres(List.of(genre));
+
+        this.filmService.create(film);
+    }
+
+    // endregion
+}
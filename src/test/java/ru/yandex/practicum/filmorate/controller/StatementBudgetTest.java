@@ -0,0 +1,198 @@
+package ru.yandex.practicum.filmorate.controller;
+
+// region imports
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MotionPictureAssociation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.util.sql.StatementCounter;
+import ru.yandex.practicum.filmorate.util.sql.StatementCountingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// endregion
+
+/**
+ * Бюджеты SQL-запросов эндпоинтов: количество SQL-запросов, выполненных при обработке одного HTTP-запроса,
+ * не должно превышать допустимого. Запросы считает {@link StatementCountingDataSource}, которым в тестовом
+ * контексте оборачивается источник данных приложения. В БД создаётся {@value #ROWS} фильмов с жанрами и лайками
+ * и {@value #ROWS} общих друзей, поэтому загрузка справочных данных по одной строке превышает бюджет.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statement-budget;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class StatementBudgetTest {
+    /**
+     * Количество фильмов и друзей пользователя.
+     */
+    private static final int ROWS = 50;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    private static Long filmId;
+
+    private static long userId;
+
+    private static long friendId;
+
+    private static long otherUserId;
+
+    @BeforeEach
+    void setUp() {
+        if (filmId != null) {
+            return;
+        }
+
+        userId = this.createUser();
+        otherUserId = this.createUser();
+        for (int i = 0; i < ROWS; i++) {
+            friendId = this.createUser();
+            this.userService.addFriend(userId, friendId);
+            this.userService.addFriend(otherUserId, friendId);
+        }
+
+        for (int i = 0; i < ROWS; i++) {
+            filmId = this.createFilm(i);
+            this.filmService.addLike(filmId, friendId);
+        }
+    }
+
+    @Test
+    void getFilms() throws Exception {
+        this.assertStatementsAtMost(4, HttpMethod.GET, "/films");
+    }
+
+    @Test
+    void getFilmById() throws Exception {
+        this.assertStatementsAtMost(4, HttpMethod.GET, "/films/{filmId}", filmId);
+    }
+
+    @Test
+    void getPopularFilms() throws Exception {
+        this.assertStatementsAtMost(3, HttpMethod.GET, "/films/popular");
+    }
+
+    @Test
+    void addLike() throws Exception {
+        this.assertStatementsAtMost(2, HttpMethod.PUT, "/films/{filmId}/like/{userId}", filmId, userId);
+    }
+
+    @Test
+    void removeLike() throws Exception {
+        this.assertStatementsAtMost(2, HttpMethod.DELETE, "/films/{filmId}/like/{userId}", filmId, friendId);
+    }
+
+    @Test
+    void getUsers() throws Exception {
+        this.assertStatementsAtMost(1, HttpMethod.GET, "/users");
+    }
+
+    @Test
+    void getFriends() throws Exception {
+        this.assertStatementsAtMost(3, HttpMethod.GET, "/users/{userId}/friends", userId);
+    }
+
+    @Test
+    void getCommonFriends() throws Exception {
+        this.assertStatementsAtMost(3, HttpMethod.GET, "/users/{userId}/friends/common/{otherUserId}", userId, otherUserId);
+    }
+
+    // region Facilities
+
+    /**
+     * Выполнить HTTP-запрос и проверить количество SQL-запросов, выполненных при его обработке.
+     *
+     * @param budget       допустимое количество SQL-запросов.
+     * @param method       HTTP-метод.
+     * @param uriTemplate  шаблон пути.
+     * @param uriVariables значения переменных пути.
+     */
+    private void assertStatementsAtMost(int budget, HttpMethod method, String uriTemplate, Object... uriVariables) throws Exception {
+        try (StatementCounter.Scope scope = StatementCounter.open()) {
+            this.mockMvc.perform(request(method, uriTemplate, uriVariables)).andExpect(status().is2xxSuccessful());
+
+            scope.assertAtMost(budget, method + " " + uriTemplate);
+        }
+    }
+
+    private long createUser() {
+        String login = UUID.randomUUID().toString();
+
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@example.com");
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+
+        return this.userService.create(user).getId();
+    }
+
+    private long createFilm(int index) {
+        MotionPictureAssociation mpa = new MotionPictureAssociation();
+        mpa.setId((long) (index % 5 + 1));
+
+        Genre genre = new Genre();
+        genre.setId((long) (index % 6 + 1));
+
+        Genre otherGenre = new Genre();
+        otherGenre.setId((long) ((index + 1) % 6 + 1));
+
+        Film film = new Film();
+        film.setName("Фильм " + index);
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(Duration.ofMinutes(120));
+        film.setMpa(mpa);
+        film.setGenres(List.of(genre, otherGenre));
+
+        return this.filmService.create(film).getId();
+    }
+
+    // endregion
+
+    /**
+     * Подмена источника данных приложения на {@link StatementCountingDataSource}.
+     */
+    @TestConfiguration
+    static class StatementCountingConfiguration {
+        @Bean
+        static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                        return new StatementCountingDataSource(dataSource);
+                    }
+
+                    return bean;
+                }
+            };
+        }
+    }
+}
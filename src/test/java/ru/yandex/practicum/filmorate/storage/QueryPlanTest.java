@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.storage;
+
+// region imports
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// endregion
+
+/**
+ * Проверка планов выполнения SQL-запросов хранилищ.
+ * Схема из {@code schema.sql} загружается во встроенную БД H2, и для каждой константы {@code *_QUERY} хранилищ
+ * выполняется {@code EXPLAIN}; план с полным просмотром таблицы допустим только для запросов из {@link #FULL_SCAN_QUERIES}.
+ */
+class QueryPlanTest {
+    /**
+     * Хранилища, запросы которых проверяются.
+     */
+    private static final List<Class<?>> STORAGES = List.of(FilmDbStorage.class, UserDbStorage.class, GenreDbStorage.class, MotionPictureAssociationDbStorage.class);
+
+    /**
+     * Запросы, которым полный просмотр таблицы разрешён: выгрузки и пересчёт всей таблицы, а также справочники.
+     */
+    private static final Set<String> FULL_SCAN_QUERIES = Set.of(
+            "FilmDbStorage.GET_ALL_FILMS_QUERY",
+            "FilmDbStorage.GET_ALL_LIKES_QUERY",
+            "FilmDbStorage.REBUILD_LIKES_COUNT_QUERY",
+            "FilmDbStorage.GET_FILMS_VERSION_QUERY",
+            "UserDbStorage.FIND_ALL_USERS_QUERY",
+            "UserDbStorage.GET_ALL_FRIENDSHIPS_QUERY",
+            "GenreDbStorage.GET_ALL_GENRES_QUERY",
+            "MotionPictureAssociationDbStorage.GET_ALL_MPA_QUERY"
+    );
+
+    /**
+     * Признак полного просмотра таблицы в плане запроса H2.
+     */
+    private static final String TABLE_SCAN_MARKER = "tableScan";
+
+    private static EmbeddedDatabase database;
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScripts("classpath:schema.sql", "classpath:data.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void storageQueriesDoNotScanTables() {
+        List<String> regressions = new ArrayList<>();
+
+        queries().forEach((name, query) -> {
+            String plan = explain(query);
+            if (plan.contains(TABLE_SCAN_MARKER) && !FULL_SCAN_QUERIES.contains(name)) {
+                regressions.add(name + ": " + plan);
+            }
+        });
+
+        assertTrue(regressions.isEmpty(), () -> "Запросы выполняются полным просмотром таблицы:\n" + String.join("\n", regressions));
+    }
+
+    @Test
+    void fullScanQueriesExist() {
+        Set<String> names = queries().keySet();
+
+        FULL_SCAN_QUERIES.forEach(name -> assertTrue(names.contains(name), () -> "Запрос " + name + " не найден в хранилищах"));
+    }
+
+    // region Facilities
+
+    /**
+     * Получить SQL-запросы всех проверяемых хранилищ.
+     *
+     * @return тексты запросов по их именам вида {@code FilmDbStorage.GET_FILM_BY_ID_QUERY}.
+     */
+    private static Map<String, String> queries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        STORAGES.forEach(storage -> queries.putAll(QueryMetrics.queryConstants(storage)));
+
+        return queries;
+    }
+
+    /**
+     * Получить план выполнения запроса. Параметры запроса заполняются значениями {@code NULL}
+     * (массивы - массивом из одного элемента): H2 строит план без учёта значений параметров.
+     *
+     * @param query SQL-запрос.
+     * @return план выполнения запроса.
+     */
+    private static String explain(String query) {
+        return jdbcTemplate.execute("EXPLAIN " + query, (PreparedStatement preparedStatement) -> {
+            ParameterMetaData metaData = preparedStatement.getParameterMetaData();
+            for (int i = 1; i <= metaData.getParameterCount(); i++) {
+                int type = metaData.getParameterType(i);
+                if (type == Types.ARRAY) {
+                    preparedStatement.setObject(i, new Object[]{1L});
+                } else {
+                    preparedStatement.setNull(i, type);
+                }
+            }
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+            }
+
+            return plan.toString();
+        });
+    }
+
+    // endregion
+}
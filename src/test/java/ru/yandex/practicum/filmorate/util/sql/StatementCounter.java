@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.util.sql;
+
+/**
+ * Счётчик SQL-запросов, выполненных текущим потоком внутри области подсчёта.
+ * Запросы считает {@link StatementCountingDataSource}; пакет запросов считается одним обращением к БД.
+ * <pre>{@code
+ * try (StatementCounter.Scope scope = StatementCounter.open()) {
+ *     filmService.getAll();
+ *     scope.assertAtMost(4, "GET /films");
+ * }
+ * }</pre>
+ */
+public final class StatementCounter {
+    /**
+     * Текущая область подсчёта потока.
+     */
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    /**
+     * Открыть область подсчёта в текущем потоке. Вложенная область считает только свои запросы,
+     * а после закрытия прибавляет их к внешней.
+     *
+     * @return область подсчёта.
+     */
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Учесть выполненный запрос в текущей области подсчёта, если она открыта.
+     */
+    static void increment() {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.count++;
+        }
+    }
+
+    /**
+     * Область подсчёта SQL-запросов.
+     */
+    public static final class Scope implements AutoCloseable {
+        /**
+         * Внешняя область подсчёта.
+         */
+        private final Scope parent;
+
+        /**
+         * Количество выполненных запросов.
+         */
+        private int count;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * Получить количество запросов, выполненных внутри области.
+         *
+         * @return количество запросов.
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        /**
+         * Проверить, что внутри области выполнено не больше {@code budget} запросов.
+         *
+         * @param budget    допустимое количество запросов.
+         * @param operation описание проверяемой операции для сообщения об ошибке.
+         * @throws IllegalStateException если запросов выполнено больше допустимого.
+         */
+        public void assertAtMost(int budget, String operation) {
+            if (this.count > budget) {
+                throw new IllegalStateException(String.format("%s: выполнено SQL-запросов - %d, допустимо - %d", operation, this.count, budget));
+            }
+        }
+
+        /**
+         * Закрыть область подсчёта и вернуть текущим потоку внешнюю область.
+         */
+        @Override
+        public void close() {
+            if (this.parent == null) {
+                CURRENT.remove();
+            } else {
+                this.parent.count += this.count;
+                CURRENT.set(this.parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.util.sql;
+
+// region imports
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// endregion
+
+/**
+ * Источник данных, учитывающий каждое выполнение SQL-запроса в {@link StatementCounter}.
+ * Соединения и запросы оборачиваются динамическими прокси; вне области подсчёта прокси только делегируют вызовы.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+    /**
+     * Конструктор.
+     *
+     * @param targetDataSource исходный источник данных.
+     */
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    // region Facilities
+
+    /**
+     * Обернуть соединение: запросы, созданные через него, учитываются при выполнении.
+     *
+     * @param connection соединение.
+     * @return обёрнутое соединение.
+     */
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            } else if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                return wrapStatement(statement, method.getReturnType());
+            }
+
+            return result;
+        });
+    }
+
+    /**
+     * Обернуть запрос: каждый вызов {@code execute*} учитывается в {@link StatementCounter}.
+     *
+     * @param statement запрос.
+     * @param type      интерфейс запроса ({@link Statement}, {@link java.sql.PreparedStatement} или {@link java.sql.CallableStatement}).
+     * @return обёрнутый запрос.
+     */
+    private static Statement wrapStatement(Statement statement, Class<?> type) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                StatementCounter.increment();
+            }
+
+            return invoke(statement, method, args);
+        };
+
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Вызвать метод исходного объекта, пробросив исключение самого метода.
+     *
+     * @param target исходный объект.
+     * @param method метод.
+     * @param args   аргументы.
+     * @return результат вызова.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    // endregion
+}